@@ -2,11 +2,17 @@ package com.rentvideo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class VideoRentalApplication {
     
     public static void main(String[] args) {
-        SpringApplication.run(VideoRentalApplication.class, args);
+        SpringApplication application = new SpringApplication(VideoRentalApplication.class);
+        // Records startup steps for StartupTimingReporter and /actuator/startup
+        application.setApplicationStartup(new BufferingApplicationStartup(4096));
+        application.run(args);
     }
 }
@@ -0,0 +1,67 @@
+package com.rentvideo.config;
+
+import com.rentvideo.dto.response.CatalogImportResponse;
+import com.rentvideo.service.CatalogImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports a catalog file and exits when the application is launched with
+ * {@code --import-catalog=<file>}. Files ending in .csv are read as CSV,
+ * anything else as JSON lines. Exits with 1 if any row failed.
+ */
+@Component
+@Order(200)
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogImportRunner implements ApplicationRunner {
+    
+    static final String OPTION = "import-catalog";
+    
+    private final CatalogImportService catalogImportService;
+    private final ApplicationContext context;
+    
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> files = args.getOptionValues(OPTION);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+        
+        Path file = Path.of(files.get(0));
+        CatalogImportService.Format format = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")
+                ? CatalogImportService.Format.CSV
+                : CatalogImportService.Format.NDJSON;
+        
+        CatalogImportResponse summary;
+        try (InputStream in = Files.newInputStream(file)) {
+            summary = catalogImportService.importCatalog(in, format, CatalogImportRunner::log);
+        }
+        
+        int exitCode = summary.getFailed() > 0 ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+    
+    private static void log(CatalogImportResponse line) {
+        switch (line.getType()) {
+            case CatalogImportResponse.ERROR -> log.warn("Row {} ({}): {}", line.getRow(), line.getTitle(), line.getMessage());
+            case CatalogImportResponse.DUPLICATE -> log.info("Row {} ({}): duplicate", line.getRow(), line.getTitle());
+            case CatalogImportResponse.PROGRESS -> log.info("Imported {} of {} rows so far", line.getImported(), line.getRows());
+            default -> {
+            }
+        }
+    }
+}
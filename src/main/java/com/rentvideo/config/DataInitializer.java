@@ -1,5 +1,6 @@
 package com.rentvideo.config;
 
+import com.rentvideo.event.VideoChangedEvent;
 import com.rentvideo.model.Role;
 import com.rentvideo.model.User;
 import com.rentvideo.model.Video;
@@ -7,27 +8,79 @@ import com.rentvideo.repository.UserRepository;
 import com.rentvideo.repository.VideoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
+/**
+ * Seeds the default users and sample videos into an empty database.
+ *
+ * seed.mode picks when: eager seeds before the application is ready (the
+ * default, for development), deferred seeds on a background thread once it
+ * accepts traffic, so the count queries and BCrypt hashes stay off the
+ * startup path, and none skips seeding. Deferred seeding publishes the
+ * usual change events, so the search and facet indexes pick the videos up.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializer implements CommandLineRunner {
     
+    public enum SeedMode {
+        EAGER,
+        DEFERRED,
+        NONE
+    }
+    
     private final UserRepository userRepository;
     private final VideoRepository videoRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${seed.mode:eager}")
+    private SeedMode mode = SeedMode.EAGER;
     
     @Override
     public void run(String... args) {
+        if (mode == SeedMode.EAGER) {
+            seed();
+        }
+    }
+    
+    /**
+     * Published after the ApplicationReadyEvent listeners, including the index rebuilds, have run
+     */
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (mode == SeedMode.DEFERRED && event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            Thread seeder = new Thread(this::seedDeferred, "data-seeder");
+            seeder.setDaemon(true);
+            seeder.start();
+        }
+    }
+    
+    private void seed() {
         initializeUsers();
         initializeVideos();
     }
     
+    private void seedDeferred() {
+        long started = System.nanoTime();
+        try {
+            seed();
+            log.info("Deferred seeding finished in {} ms", (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Deferred seeding failed", e);
+        }
+    }
+    
     private void initializeUsers() {
         if (userRepository.count() == 0) {
             // Create Admin User
@@ -72,7 +125,7 @@ public class DataInitializer implements CommandLineRunner {
             video1.setTotalCopies(5);
             video1.setAvailableCopies(5);
             video1.setAvailable(true);
-            videoRepository.save(video1);
+            save(video1);
             
             // Sample Video 2
             Video video2 = new Video();
@@ -86,7 +139,7 @@ public class DataInitializer implements CommandLineRunner {
             video2.setTotalCopies(3);
             video2.setAvailableCopies(3);
             video2.setAvailable(true);
-            videoRepository.save(video2);
+            save(video2);
             
             // Sample Video 3
             Video video3 = new Video();
@@ -100,7 +153,7 @@ public class DataInitializer implements CommandLineRunner {
             video3.setTotalCopies(4);
             video3.setAvailableCopies(4);
             video3.setAvailable(true);
-            videoRepository.save(video3);
+            save(video3);
             
             // Sample Video 4
             Video video4 = new Video();
@@ -114,7 +167,7 @@ public class DataInitializer implements CommandLineRunner {
             video4.setTotalCopies(6);
             video4.setAvailableCopies(6);
             video4.setAvailable(true);
-            videoRepository.save(video4);
+            save(video4);
             
             // Sample Video 5
             Video video5 = new Video();
@@ -128,9 +181,14 @@ public class DataInitializer implements CommandLineRunner {
             video5.setTotalCopies(2);
             video5.setAvailableCopies(2);
             video5.setAvailable(true);
-            videoRepository.save(video5);
+            save(video5);
             
             log.info("Sample videos created successfully");
         }
     }
+    
+    private void save(Video video) {
+        videoRepository.save(video);
+        eventPublisher.publishEvent(VideoChangedEvent.created(video));
+    }
 }
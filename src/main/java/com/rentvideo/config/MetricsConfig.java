@@ -0,0 +1,186 @@
+package com.rentvideo.config;
+
+import com.rentvideo.journal.InventoryJournal;
+import com.rentvideo.metrics.JdbcStatementCounter;
+import com.rentvideo.security.BoundedPasswordEncoder;
+import com.rentvideo.security.JwtUtil;
+import com.rentvideo.security.LoginThrottle;
+import com.rentvideo.service.InventoryJournalService;
+import com.rentvideo.service.OverdueRentalSweeper;
+import com.rentvideo.service.VideoJsonCache;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer wiring: @Timed support, and meters for the components that
+ * keep their own counters (password hashing, request concurrency limit,
+ * JWT cache, login throttle, overdue sweep, video JSON cache, second-level
+ * cache).
+ */
+@Configuration
+public class MetricsConfig {
+    
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer jdbcStatementCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new JdbcStatementCounter());
+    }
+    
+    @Bean
+    public MeterBinder passwordHashingMetrics(BoundedPasswordEncoder encoder) {
+        return registry -> {
+            FunctionTimer.builder("auth.password.hash", encoder,
+                            BoundedPasswordEncoder::getHashCount,
+                            BoundedPasswordEncoder::getTotalHashNanos, TimeUnit.NANOSECONDS)
+                    .description("BCrypt hash and verify time on the hashing pool")
+                    .register(registry);
+            Gauge.builder("auth.password.hash.max", encoder, e -> e.getMaxHashNanos() / 1_000_000.0)
+                    .description("Slowest hash since startup")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("auth.password.queue.depth", encoder, BoundedPasswordEncoder::getQueueDepth)
+                    .description("Hashes waiting for a pool thread")
+                    .register(registry);
+            Gauge.builder("auth.password.active", encoder, BoundedPasswordEncoder::getActiveHashes)
+                    .description("Hashes running right now")
+                    .register(registry);
+            FunctionCounter.builder("auth.password.rejected", encoder, BoundedPasswordEncoder::getRejectedCount)
+                    .description("Hashes shed with 503 because the pool was saturated")
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder requestConcurrencyMetrics(RequestConcurrencyLimitFilter limitFilter) {
+        return registry -> {
+            Gauge.builder("http.concurrency.active", limitFilter, RequestConcurrencyLimitFilter::getActiveRequests)
+                    .description("Requests holding a concurrency permit")
+                    .register(registry);
+            FunctionCounter.builder("http.concurrency.rejected", limitFilter,
+                            RequestConcurrencyLimitFilter::getRejectedCount)
+                    .description("Requests shed with 503 because the concurrency limit was reached")
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder authMetrics(JwtUtil jwtUtil, LoginThrottle loginThrottle) {
+        return registry -> {
+            FunctionCounter.builder("auth.jwt.cache", jwtUtil, JwtUtil::getCacheHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("auth.jwt.cache", jwtUtil, JwtUtil::getCacheMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("auth.jwt.cache.size", jwtUtil, JwtUtil::getCacheSize)
+                    .register(registry);
+            FunctionCounter.builder("auth.login.throttled", loginThrottle, LoginThrottle::getRejectedByUsername)
+                    .tag("key", "username")
+                    .register(registry);
+            FunctionCounter.builder("auth.login.throttled", loginThrottle, LoginThrottle::getRejectedByClient)
+                    .tag("key", "client")
+                    .register(registry);
+            Gauge.builder("auth.login.buckets", loginThrottle, LoginThrottle::getBucketCount)
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder overdueSweepMetrics(OverdueRentalSweeper sweeper) {
+        return registry -> {
+            FunctionCounter.builder("rentals.overdue.sweep.runs", sweeper, OverdueRentalSweeper::getRuns)
+                    .register(registry);
+            FunctionCounter.builder("rentals.overdue.sweep.rows", sweeper, OverdueRentalSweeper::getTotalRowsProcessed)
+                    .description("Rentals marked overdue")
+                    .register(registry);
+            Gauge.builder("rentals.overdue.sweep.last.rows", sweeper, OverdueRentalSweeper::getLastRowsProcessed)
+                    .register(registry);
+            Gauge.builder("rentals.overdue.sweep.last.duration", sweeper, OverdueRentalSweeper::getLastRunMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder journalMetrics(InventoryJournalService journalService) {
+        return registry -> {
+            FunctionCounter.builder("journal.append.failures", journalService, InventoryJournalService::getFailureCount)
+                    .description("Appends that failed, leaving their event in the outbox")
+                    .register(registry);
+            InventoryJournal journal = journalService.getJournal();
+            if (journal == null) {
+                return;
+            }
+            Gauge.builder("journal.outbox.pending", journalService, InventoryJournalService::getPendingCount)
+                    .description("Committed events not yet appended to the journal")
+                    .register(registry);
+            FunctionCounter.builder("journal.appends", journal, InventoryJournal::appendCount)
+                    .register(registry);
+            FunctionCounter.builder("journal.syncs", journal, InventoryJournal::syncCount)
+                    .description("Forces to disk, each covering every event appended since the last")
+                    .register(registry);
+            FunctionCounter.builder("journal.compacted", journal, InventoryJournal::compactedEventCount)
+                    .description("Events dropped by compaction")
+                    .register(registry);
+            Gauge.builder("journal.unsynced", journal, j -> j.lastSequence() - j.syncedSequence())
+                    .description("Events appended but not yet forced to disk")
+                    .register(registry);
+            Gauge.builder("journal.segments", journal, InventoryJournal::segmentCount)
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder videoJsonCacheMetrics(VideoJsonCache cache) {
+        return registry -> {
+            FunctionCounter.builder("videos.json.cache", cache, VideoJsonCache::getHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("videos.json.cache", cache, VideoJsonCache::getMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("videos.json.cache.size", cache, VideoJsonCache::getSize)
+                    .register(registry);
+        };
+    }
+    
+    /**
+     * Hits, misses, puts and evictions of each Hibernate second-level cache region
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : hibernateCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region));
+            }
+        };
+    }
+    
+    /**
+     * Alongside Spring Boot's application.started.time and application.ready.time
+     */
+    @Bean
+    public MeterBinder startupMetrics(StartupTimingReporter reporter) {
+        return registry -> TimeGauge.builder("application.first.request.time", reporter, TimeUnit.MILLISECONDS,
+                        r -> r.getFirstRequestMillis() < 0 ? Double.NaN : r.getFirstRequestMillis())
+                .description("Time from JVM start until the first request was served")
+                .register(registry);
+    }
+}
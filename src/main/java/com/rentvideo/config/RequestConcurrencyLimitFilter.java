@@ -0,0 +1,116 @@
+package com.rentvideo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of requests handled at once. On platform threads the
+ * Tomcat pool does that; on virtual threads every accepted connection gets a
+ * thread, and a burst would pile up on the connection pool instead, each
+ * request holding its memory until Hikari's timeout. A request that gets no
+ * permit within maxWait is answered 503 with Retry-After, like a saturated
+ * password hashing pool.
+ *
+ * Off (max-requests 0) unless configured; the virtual profile turns it on.
+ * Actuator endpoints are never limited, so health checks answer under load.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class RequestConcurrencyLimitFilter extends OncePerRequestFilter {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final int maxRequests;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+    
+    public RequestConcurrencyLimitFilter(@Value("${http.concurrency.max-requests:0}") int maxRequests,
+                                         @Value("${http.concurrency.max-wait:1000}") long maxWaitMillis) {
+        this.maxRequests = maxRequests;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(Math.max(maxRequests, 0));
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return maxRequests <= 0 || request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+    
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        
+        if (!acquire()) {
+            rejected.incrementAndGet();
+            log.debug("{} requests in progress, rejecting {} {}", maxRequests, request.getMethod(),
+                    request.getRequestURI());
+            reject(response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        body.put("message", "Too many requests in progress, please retry shortly");
+        body.put("timestamp", LocalDateTime.now().toString());
+        MAPPER.writeValue(response.getOutputStream(), body);
+    }
+    
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+    
+    /**
+     * Requests holding a permit right now, 0 when the limit is off
+     */
+    public int getActiveRequests() {
+        return maxRequests > 0 ? maxRequests - permits.availablePermits() : 0;
+    }
+    
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.rentvideo.config;
+
+import com.rentvideo.service.RevenueRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the revenue rollups from rental history at startup when the
+ * application is launched with {@code --rebuild-rollups}, e.g. after a
+ * crash lost unflushed counters or after importing rentals directly.
+ */
+@Component
+@Order(100)
+@RequiredArgsConstructor
+public class RollupRebuildRunner implements ApplicationRunner {
+    
+    static final String OPTION = "rebuild-rollups";
+    
+    private final RevenueRollupService revenueRollupService;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            revenueRollupService.rebuild();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.rentvideo.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.rentvideo.model.User;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate second-level cache for User, and the query cache, held in
+ * Caffeine through its JCache provider. application.properties leaves both
+ * off; they are only switched on here, where their regions are created.
+ *
+ * User is READ_WRITE: an update soft-locks the cached entry until its
+ * transaction completes, so other transactions go to the database rather
+ * than read a copy that is about to change.
+ *
+ * Video is not cached. Rents and returns change copy counts with bulk JPQL
+ * updates (VideoRepository), and Hibernate answers each one by clearing the
+ * whole region, so under rental traffic it would mostly be refilled and
+ * thrown away. Catalog reads go through VideoJsonCache instead.
+ *
+ * Every region is created here with a size and time to live, and Hibernate
+ * fails rather than create an unbounded one. The update timestamps region
+ * is never evicted, since cached query results are only as good as it is.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    
+    private static final AtomicInteger cacheManagers = new AtomicInteger();
+    
+    @Value("${second-level-cache.users.max-entries:10000}")
+    private long usersMaxEntries;
+    
+    @Value("${second-level-cache.users.ttl:3600000}")
+    private long usersTtl;
+    
+    @Value("${second-level-cache.queries.max-entries:10000}")
+    private long queriesMaxEntries;
+    
+    @Value("${second-level-cache.queries.ttl:600000}")
+    private long queriesTtl;
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // A manager per application context, so test contexts don't share regions or JMX names
+        URI uri = URI.create("hibernate-" + cacheManagers.incrementAndGet());
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(uri, getClass().getClassLoader());
+        
+        cacheManager.createCache(User.CACHE_REGION, region(usersMaxEntries, usersTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(queriesMaxEntries, queriesTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(0, 0));
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+        };
+    }
+    
+    /**
+     * Entries are stored by reference: Hibernate already caches a disassembled
+     * copy of the entity, so copying it again on every get would be wasted.
+     * 0 means unbounded for either limit.
+     */
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, long ttlMillis) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        if (ttlMillis > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+        }
+        return configuration;
+    }
+}
@@ -1,9 +1,11 @@
 package com.rentvideo.config;
 
+import com.rentvideo.security.BoundedPasswordEncoder;
 import com.rentvideo.security.JwtAuthenticationEntryPoint;
 import com.rentvideo.security.JwtAuthenticationFilter;
 import com.rentvideo.service.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,7 +17,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -29,9 +30,22 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     
+    @Value("${auth.hashing.threads:0}")
+    private int hashingThreads;
+    
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+    
+    @Value("${auth.hashing.max-wait:2000}")
+    private long hashingMaxWait;
+    
+    /**
+     * BCrypt on its own bounded pool; 0 threads means half the cores
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, hashingQueueCapacity, hashingMaxWait);
     }
     
     @Bean
@@ -57,6 +71,7 @@ public class SecurityConfig {
                 .requestMatchers("/h2-console/**").permitAll()
                 
                 // Video endpoints
+                .requestMatchers(HttpMethod.GET, "/api/videos/export").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/videos/**").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.POST, "/api/videos/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/api/videos/**").hasRole("ADMIN")
@@ -64,14 +79,27 @@ public class SecurityConfig {
                 
                 // Rental endpoints
                 .requestMatchers(HttpMethod.POST, "/api/rentals").hasAnyRole("USER", "ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/rentals/batch").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/rentals/my-rentals").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/api/rentals/*/return").hasAnyRole("USER", "ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/api/rentals/return").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/rentals").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/rentals/export").hasRole("ADMIN")
                 
                 // User endpoints
                 .requestMatchers(HttpMethod.GET, "/api/users/me").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/api/users/me").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/users").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/users/export").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/api/users/*/status").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/api/users/*/role").hasRole("ADMIN")
+                
+                // Revenue dashboards
+                .requestMatchers("/api/analytics/**").hasRole("ADMIN")
+                
+                // Actuator: health is open for load balancers, metrics are admin only
+                .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 
                 // All other requests require authentication
                 .anyRequest().authenticated()
@@ -0,0 +1,35 @@
+package com.rentvideo.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Startup settings for the fast profile (application-fast.properties).
+ *
+ * With spring.main.lazy-initialization a bean is only created when first
+ * used, but @Scheduled methods are only registered for beans that exist, so
+ * the sweeper, rollup flush and journal sync would silently never run.
+ * Beans with scheduled methods stay eager.
+ */
+@Configuration
+public class StartupConfig {
+    
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansStayEager() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && hasScheduledMethod(beanType);
+    }
+    
+    private static boolean hasScheduledMethod(Class<?> type) {
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(type,
+                method -> found.set(true),
+                method -> !found.get() && AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+        return found.get();
+    }
+}
@@ -0,0 +1,113 @@
+package com.rentvideo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Logs how long startup took and which startup optimizations were active,
+ * so the effect of each one (lazy initialization, AOT, the CDS archive,
+ * deferred seeding) can be compared run against run. Reports time to ready,
+ * the slowest bean creations, and time to the first served request, all
+ * measured from JVM start. The full step timeline is at /actuator/startup.
+ */
+@Component
+@Slf4j
+public class StartupTimingReporter {
+    
+    private static final int SLOWEST_STEPS = 5;
+    
+    @Value("${spring.main.lazy-initialization:false}")
+    private boolean lazyInitialization;
+    
+    @Value("${seed.mode:eager}")
+    private DataInitializer.SeedMode seedMode;
+    
+    private volatile long readyMillis = -1;
+    private volatile long firstRequestMillis = -1;
+    
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("Ready {} ms after JVM start (context {} ms): lazy-init={}, aot={}, cds={}, seed={}",
+                readyMillis, event.getTimeTaken().toMillis(), lazyInitialization, AotDetector.useGeneratedArtifacts(),
+                usesSharedArchive(), seedMode.name().toLowerCase(Locale.ROOT));
+        
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup buffering) {
+            log.info("Slowest bean creations: {}", slowestBeans(buffering.getBufferedTimeline()));
+        }
+    }
+    
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestMillis < 0) {
+            firstRequestMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            log.info("First request served {} ms after JVM start", firstRequestMillis);
+        }
+    }
+    
+    /**
+     * Milliseconds from JVM start to ApplicationReadyEvent, -1 until then
+     */
+    public long getReadyMillis() {
+        return readyMillis;
+    }
+    
+    /**
+     * Milliseconds from JVM start to the end of the first request, -1 until then
+     */
+    public long getFirstRequestMillis() {
+        return firstRequestMillis;
+    }
+    
+    private static boolean usesSharedArchive() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+    }
+    
+    /**
+     * Bean creations by their own time, without the dependencies created inside them
+     */
+    private static String slowestBeans(StartupTimeline timeline) {
+        Map<Long, Duration> nested = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            Long parent = event.getStartupStep().getParentId();
+            if (parent != null) {
+                nested.merge(parent, event.getDuration(), Duration::plus);
+            }
+        }
+        return timeline.getEvents().stream()
+                .filter(event -> "spring.beans.instantiate".equals(event.getStartupStep().getName()))
+                .map(event -> Map.entry(beanName(event.getStartupStep()),
+                        event.getDuration().minus(nested.getOrDefault(event.getStartupStep().getId(), Duration.ZERO))))
+                .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+                .limit(SLOWEST_STEPS)
+                .map(entry -> entry.getKey() + " " + entry.getValue().toMillis() + " ms")
+                .collect(Collectors.joining(", "));
+    }
+    
+    private static String beanName(StartupStep step) {
+        return StreamSupport.stream(step.getTags().spliterator(), false)
+                .filter(tag -> "beanName".equals(tag.getKey()))
+                .map(StartupStep.Tag::getValue)
+                .findFirst()
+                .orElse("?");
+    }
+}
@@ -0,0 +1,39 @@
+package com.rentvideo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs which thread model serves requests. spring.threads.virtual.enabled is
+ * silently ignored before Java 21, so say so instead of leaving it to guesswork;
+ * build and run with the virtual Maven profile to get a Java 21 build.
+ */
+@Component
+@Slf4j
+public class ThreadingModeReporter {
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+    
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+    
+    @Value("${http.concurrency.max-requests:0}")
+    private int maxRequests;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        int javaVersion = Runtime.version().feature();
+        if (virtualThreadsRequested && javaVersion < 21) {
+            log.warn("Virtual threads requested but running on Java {}; requests are served by platform threads",
+                    javaVersion);
+        } else {
+            log.info("Requests are served by {} threads, connection pool size {}, concurrency limit {}",
+                    virtualThreadsRequested ? "virtual" : "platform", poolSize,
+                    maxRequests > 0 ? maxRequests : "none");
+        }
+    }
+}
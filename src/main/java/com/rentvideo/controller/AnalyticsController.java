@@ -0,0 +1,89 @@
+package com.rentvideo.controller;
+
+import com.rentvideo.dto.response.RevenueRollupResponse;
+import com.rentvideo.exception.BadRequestException;
+import com.rentvideo.exception.ServiceUnavailableException;
+import com.rentvideo.model.RevenueRollup;
+import com.rentvideo.service.ExportService;
+import com.rentvideo.service.InventoryJournalService;
+import com.rentvideo.service.RevenueRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+    
+    private static final int MAX_DAYS = 366;
+    
+    private final RevenueRollupService revenueRollupService;
+    private final InventoryJournalService inventoryJournal;
+    private final ExportService exportService;
+    
+    @GetMapping("/summary")
+    public ResponseEntity<RevenueRollupResponse> getSummary() {
+        return ResponseEntity.ok(revenueRollupService.getSummary());
+    }
+    
+    @GetMapping("/videos/{id}")
+    public ResponseEntity<RevenueRollupResponse> getVideo(@PathVariable Long id) {
+        return ResponseEntity.ok(revenueRollupService.getVideo(id));
+    }
+    
+    @GetMapping("/videos")
+    public ResponseEntity<List<RevenueRollupResponse>> getVideos() {
+        return ResponseEntity.ok(revenueRollupService.getAll(RevenueRollup.Dimension.VIDEO));
+    }
+    
+    @GetMapping("/genres")
+    public ResponseEntity<List<RevenueRollupResponse>> getGenres() {
+        return ResponseEntity.ok(revenueRollupService.getAll(RevenueRollup.Dimension.GENRE));
+    }
+    
+    @GetMapping("/days")
+    public ResponseEntity<List<RevenueRollupResponse>> getDays(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new BadRequestException("Date range must be ascending and at most " + MAX_DAYS + " days");
+        }
+        return ResponseEntity.ok(revenueRollupService.getDays(from, to));
+    }
+    
+    /**
+     * Inventory journal events from the given sequence on, as NDJSON
+     */
+    @GetMapping(value = "/journal", produces = ExportService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportJournal(@RequestParam(defaultValue = "1") long from) {
+        if (!inventoryJournal.isEnabled()) {
+            throw new ServiceUnavailableException("Inventory journal is disabled");
+        }
+        StreamingResponseBody body = out -> exportService.exportJournal(out, from);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportService.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"journal.ndjson\"")
+                .body(body);
+    }
+    
+    /**
+     * Recompute all rollups from the rental history
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<RevenueRollupResponse> rebuild() {
+        revenueRollupService.rebuild();
+        return ResponseEntity.ok(revenueRollupService.getSummary());
+    }
+}
@@ -6,12 +6,15 @@ import com.rentvideo.dto.response.AuthResponse;
 import com.rentvideo.dto.response.JwtAuthResponse;
 import com.rentvideo.dto.response.UserResponse;
 import com.rentvideo.security.JwtUtil;
+import com.rentvideo.security.LoginThrottle;
 import com.rentvideo.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,6 +28,7 @@ public class AuthController {
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final LoginThrottle loginThrottle;
     
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -37,14 +41,25 @@ public class AuthController {
     }
     
     @PostMapping("/login")
-    public ResponseEntity<JwtAuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        // Authenticate user
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsername(),
-                        request.getPassword()
-                )
-        );
+    public ResponseEntity<JwtAuthResponse> login(@Valid @RequestBody LoginRequest request,
+                                                 HttpServletRequest httpRequest) {
+        // Throttle before any password hashing happens. The remote address is the
+        // client's as forwarded by a trusted proxy (server.forward-headers-strategy)
+        loginThrottle.check(request.getUsername(), httpRequest.getRemoteAddr());
+        
+        // Authenticate user; only a wrong password counts against the username
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.getUsername(),
+                            request.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException e) {
+            loginThrottle.recordFailure(request.getUsername());
+            throw e;
+        }
         
         // Generate JWT token
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
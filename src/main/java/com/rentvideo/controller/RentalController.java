@@ -1,14 +1,21 @@
 package com.rentvideo.controller;
 
+import com.rentvideo.dto.request.BatchRentalRequest;
+import com.rentvideo.dto.request.BulkReturnRequest;
 import com.rentvideo.dto.request.RentalRequest;
+import com.rentvideo.dto.response.BulkReturnResponse;
 import com.rentvideo.dto.response.RentalResponse;
+import com.rentvideo.service.ExportService;
 import com.rentvideo.service.RentalService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,6 +25,7 @@ import java.util.List;
 public class RentalController {
     
     private final RentalService rentalService;
+    private final ExportService exportService;
     
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -26,6 +34,13 @@ public class RentalController {
         return new ResponseEntity<>(rental, HttpStatus.CREATED);
     }
     
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<List<RentalResponse>> rentVideos(@Valid @RequestBody BatchRentalRequest request) {
+        List<RentalResponse> rentals = rentalService.rentVideos(request);
+        return new ResponseEntity<>(rentals, HttpStatus.CREATED);
+    }
+    
     @GetMapping("/my-rentals")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     public ResponseEntity<List<RentalResponse>> getCurrentUserRentals() {
@@ -49,10 +64,30 @@ public class RentalController {
         return ResponseEntity.ok(rentals);
     }
     
+    @PutMapping("/return")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkReturnResponse> returnVideos(@Valid @RequestBody BulkReturnRequest request) {
+        BulkReturnResponse response = rentalService.returnVideos(request);
+        return ResponseEntity.ok(response);
+    }
+    
     @PutMapping("/{id}/return")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     public ResponseEntity<RentalResponse> returnVideo(@PathVariable Long id) {
         RentalResponse rental = rentalService.returnVideo(id);
         return ResponseEntity.ok(rental);
     }
+    
+    /**
+     * Every rental, including returned ones, as NDJSON, streamed from a database cursor
+     */
+    @GetMapping(value = "/export", produces = ExportService.NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportRentals() {
+        StreamingResponseBody body = exportService::exportRentals;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportService.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rentals.ndjson\"")
+                .body(body);
+    }
 }
@@ -2,12 +2,17 @@ package com.rentvideo.controller;
 
 import com.rentvideo.dto.request.UpdateUserRequest;
 import com.rentvideo.dto.response.UserResponse;
+import com.rentvideo.model.Role;
+import com.rentvideo.service.ExportService;
 import com.rentvideo.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,6 +22,7 @@ import java.util.List;
 public class UserController {
     
     private final UserService userService;
+    private final ExportService exportService;
     
     @GetMapping("/me")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -38,4 +44,37 @@ public class UserController {
         List<UserResponse> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
+    
+    @PutMapping("/{id}/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserResponse> updateUserStatus(
+            @PathVariable Long id,
+            @RequestParam Boolean active
+    ) {
+        UserResponse user = userService.updateUserStatus(id, active);
+        return ResponseEntity.ok(user);
+    }
+    
+    @PutMapping("/{id}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserResponse> updateUserRole(
+            @PathVariable Long id,
+            @RequestParam Role role
+    ) {
+        UserResponse user = userService.updateUserRole(id, role);
+        return ResponseEntity.ok(user);
+    }
+    
+    /**
+     * Every user as NDJSON, streamed from a database cursor
+     */
+    @GetMapping(value = "/export", produces = ExportService.NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = exportService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportService.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(body);
+    }
 }
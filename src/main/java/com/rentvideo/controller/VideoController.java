@@ -3,14 +3,30 @@ package com.rentvideo.controller;
 import com.rentvideo.dto.request.VideoRequest;
 import com.rentvideo.dto.response.ApiResponse;
 import com.rentvideo.dto.response.VideoResponse;
+import com.rentvideo.dto.response.VideoSearchResponse;
+import com.rentvideo.service.CatalogImportService;
+import com.rentvideo.service.CatalogVersionService;
+import com.rentvideo.service.ExportService;
+import com.rentvideo.service.VideoFacetIndex;
+import com.rentvideo.service.VideoJsonCache;
 import com.rentvideo.service.VideoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -18,35 +34,88 @@ import java.util.List;
 @RequiredArgsConstructor
 public class VideoController {
     
+    /**
+     * Cache-Control of cacheable catalog responses
+     */
+    private static final String REVALIDATE = CacheControl.noCache().cachePrivate().getHeaderValue();
+    
     private final VideoService videoService;
+    private final CatalogVersionService catalogVersionService;
+    private final VideoJsonCache videoJsonCache;
+    private final ExportService exportService;
+    private final CatalogImportService catalogImportService;
     
+    /**
+     * The catalog, optionally filtered, written from the serialized JSON cache
+     */
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<List<VideoResponse>> getAllVideos(
+    public void getAllVideos(
             @RequestParam(required = false) Boolean availableOnly,
-            @RequestParam(required = false) String genre,
-            @RequestParam(required = false) String title
-    ) {
-        List<VideoResponse> videos;
+            @RequestParam(required = false) List<String> genre,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(defaultValue = "ALL") VideoFacetIndex.Match match,
+            ServletWebRequest webRequest,
+            HttpServletResponse response
+    ) throws IOException {
+        // The version is read before loading so the tag is never newer than the body
+        CatalogVersionService.Version version = catalogVersionService.catalogVersion(
+                webRequest.getRequest().getQueryString());
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified())) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+            return;
+        }
+        
+        VideoFacetIndex.Filter filter = new VideoFacetIndex.Filter(genre, yearFrom, yearTo, availableOnly, match);
         
-        if (title != null && !title.isEmpty()) {
-            videos = videoService.searchVideosByTitle(title);
-        } else if (genre != null && !genre.isEmpty()) {
-            videos = videoService.getVideosByGenre(genre);
-        } else if (Boolean.TRUE.equals(availableOnly)) {
-            videos = videoService.getAvailableVideos();
+        List<byte[]> videos;
+        
+        if ((title == null || title.isEmpty()) && filter.isEmpty()) {
+            videos = videoJsonCache.catalogJson();
         } else {
-            videos = videoService.getAllVideos();
+            videos = videoJsonCache.videosJson(videoService.findVideoIds(title, filter));
+        }
+        
+        writeJsonArray(response, version.eTag(), videos);
+    }
+    
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<VideoSearchResponse> searchVideos(
+            @RequestParam(required = false) Boolean availableOnly,
+            @RequestParam(required = false) List<String> genre,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(defaultValue = "ALL") VideoFacetIndex.Match match,
+            ServletWebRequest webRequest
+    ) {
+        CatalogVersionService.Version version = catalogVersionService.catalogVersion(
+                "search?" + webRequest.getRequest().getQueryString());
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified())) {
+            return notModified();
         }
         
-        return ResponseEntity.ok(videos);
+        VideoFacetIndex.Filter filter = new VideoFacetIndex.Filter(genre, yearFrom, yearTo, availableOnly, match);
+        VideoSearchResponse response = videoService.searchCatalog(title, filter);
+        return cacheable(version.eTag()).body(response);
     }
     
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<VideoResponse> getVideoById(@PathVariable Long id) {
-        VideoResponse video = videoService.getVideoById(id);
-        return ResponseEntity.ok(video);
+    public void getVideoById(@PathVariable Long id, ServletWebRequest webRequest, HttpServletResponse response)
+            throws IOException {
+        CatalogVersionService.Version version = catalogVersionService.videoVersion(id);
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified())) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+            return;
+        }
+        
+        byte[] video = videoJsonCache.videoJson(id, version.updatedAt());
+        prepareJson(response, version.eTag(), video.length);
+        response.getOutputStream().write(video);
     }
     
     @PostMapping
@@ -72,4 +141,81 @@ public class VideoController {
         videoService.deleteVideo(id);
         return ResponseEntity.ok(new ApiResponse("Video deleted successfully"));
     }
+    
+    /**
+     * Clients may store catalog responses but must revalidate them every time
+     */
+    private static ResponseEntity.BodyBuilder cacheable(String eTag) {
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+    }
+    
+    /**
+     * Same headers as cacheable, for responses written directly
+     */
+    private static void prepareJson(HttpServletResponse response, String eTag, int contentLength) {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(contentLength);
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+    }
+    
+    /**
+     * Frame the cached JSON of each video as an array, copying no bytes
+     */
+    private static void writeJsonArray(HttpServletResponse response, String eTag, List<byte[]> videos)
+            throws IOException {
+        int length = 2 + Math.max(videos.size() - 1, 0);
+        for (byte[] video : videos) {
+            length += video.length;
+        }
+        prepareJson(response, eTag, length);
+        
+        OutputStream out = response.getOutputStream();
+        out.write('[');
+        for (int i = 0; i < videos.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(videos.get(i));
+        }
+        out.write(']');
+    }
+    
+    /**
+     * checkNotModified has already written the ETag and Last-Modified headers
+     */
+    private static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+    
+    /**
+     * Every video as NDJSON, streamed from a database cursor
+     */
+    @GetMapping(value = "/export", produces = ExportService.NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportVideos() {
+        StreamingResponseBody body = exportService::exportVideos;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportService.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"videos.ndjson\"")
+                .body(body);
+    }
+    
+    /**
+     * Import videos from a CSV or NDJSON body, streaming an NDJSON report back.
+     * Written directly to the response so that a rejected header or a busy
+     * importer still gets its error status before any report line is sent.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", ExportService.NDJSON}, produces = ExportService.NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public void importVideos(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(ExportService.NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        catalogImportService.importCatalog(request.getInputStream(),
+                CatalogImportService.Format.of(request.getContentType()), response.getOutputStream());
+    }
 }
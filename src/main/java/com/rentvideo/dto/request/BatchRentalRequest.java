@@ -0,0 +1,16 @@
+package com.rentvideo.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchRentalRequest {
+    
+    @NotEmpty(message = "At least one rental is required")
+    @Size(max = 50, message = "At most 50 rentals per batch")
+    private List<@Valid RentalRequest> rentals;
+}
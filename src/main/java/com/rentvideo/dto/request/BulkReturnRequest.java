@@ -0,0 +1,16 @@
+package com.rentvideo.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkReturnRequest {
+    
+    @NotEmpty(message = "At least one rental id is required")
+    @Size(max = 1000, message = "At most 1000 rentals per request")
+    private List<@NotNull Long> rentalIds;
+}
@@ -0,0 +1,19 @@
+package com.rentvideo.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReturnResponse {
+    
+    private Integer returned;
+    private Integer failed;
+    private List<ReturnResultResponse> results;
+}
@@ -0,0 +1,54 @@
+package com.rentvideo.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a catalog import report: a progress update after each chunk,
+ * a rejected or duplicate row, or the final summary
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImportResponse {
+    
+    public static final String PROGRESS = "progress";
+    public static final String ERROR = "error";
+    public static final String DUPLICATE = "duplicate";
+    public static final String SUMMARY = "summary";
+    
+    private String type;
+    
+    // Rejected or duplicate row: line number in the file, title if it could be read, and why
+    private Long row;
+    private String title;
+    private String message;
+    
+    // Running totals
+    private Long rows;
+    private Long imported;
+    private Long duplicates;
+    private Long failed;
+    private Long elapsedMillis;
+    
+    public static CatalogImportResponse error(long row, String title, String message) {
+        return CatalogImportResponse.builder()
+                .type(ERROR)
+                .row(row)
+                .title(title)
+                .message(message)
+                .build();
+    }
+    
+    public static CatalogImportResponse duplicate(long row, String title) {
+        return CatalogImportResponse.builder()
+                .type(DUPLICATE)
+                .row(row)
+                .title(title)
+                .message("Already in the catalog")
+                .build();
+    }
+}
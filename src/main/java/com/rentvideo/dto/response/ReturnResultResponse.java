@@ -0,0 +1,26 @@
+package com.rentvideo.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReturnResultResponse {
+    
+    private Long rentalId;
+    private Boolean success;
+    private String message;
+    private RentalResponse rental;
+    
+    public static ReturnResultResponse success(RentalResponse rental) {
+        return new ReturnResultResponse(rental.getId(), true, "Returned", rental);
+    }
+    
+    public static ReturnResultResponse failure(Long rentalId, String message) {
+        return new ReturnResultResponse(rentalId, false, message, null);
+    }
+}
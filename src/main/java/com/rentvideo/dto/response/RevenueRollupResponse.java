@@ -0,0 +1,29 @@
+package com.rentvideo.dto.response;
+
+import com.rentvideo.model.RevenueRollup;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollupResponse {
+    
+    private RevenueRollup.Dimension dimension;
+    private String bucket;
+    private Long rentals;
+    private Long returns;
+    private BigDecimal rentalRevenue;
+    private BigDecimal lateFees;
+    private BigDecimal totalRevenue;
+    
+    // Copy utilization; not reported for days
+    private Long copiesOut;
+    private Integer totalCopies;
+    private Double utilization;
+}
@@ -0,0 +1,22 @@
+package com.rentvideo.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VideoSearchResponse {
+    
+    private List<VideoResponse> videos;
+    private Integer total;
+    private Integer available;
+    private Map<String, Integer> genres;
+    private Map<String, Integer> decades;
+}
@@ -0,0 +1,41 @@
+package com.rentvideo.event;
+
+import com.rentvideo.model.Video;
+
+/**
+ * Published by VideoService and InventoryService whenever a video or its copy
+ * count changes. Listeners use @TransactionalEventListener so they only see
+ * committed changes.
+ *
+ * @param videoId   id of the video
+ * @param type      what changed
+ * @param video     the saved entity for CREATED and UPDATED, null otherwise
+ * @param available availability of the saved entity for CREATED and UPDATED, null otherwise;
+ *                  listeners re-read it after a COPIES_CHANGED, as concurrent
+ *                  rents and returns may commit in either order
+ */
+public record VideoChangedEvent(Long videoId, Type type, Video video, Boolean available) {
+    
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        COPIES_CHANGED
+    }
+    
+    public static VideoChangedEvent created(Video video) {
+        return new VideoChangedEvent(video.getId(), Type.CREATED, video, video.getAvailable());
+    }
+    
+    public static VideoChangedEvent updated(Video video) {
+        return new VideoChangedEvent(video.getId(), Type.UPDATED, video, video.getAvailable());
+    }
+    
+    public static VideoChangedEvent deleted(Long videoId) {
+        return new VideoChangedEvent(videoId, Type.DELETED, null, null);
+    }
+    
+    public static VideoChangedEvent copiesChanged(Long videoId) {
+        return new VideoChangedEvent(videoId, Type.COPIES_CHANGED, null, null);
+    }
+}
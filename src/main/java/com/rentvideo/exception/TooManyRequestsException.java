@@ -0,0 +1,15 @@
+package com.rentvideo.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    
+    private final long retryAfterMillis;
+    
+    public TooManyRequestsException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+    
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
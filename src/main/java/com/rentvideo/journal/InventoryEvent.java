@@ -0,0 +1,59 @@
+package com.rentvideo.journal;
+
+/**
+ * One entry of the {@link InventoryJournal}: a committed change to the
+ * copies of a video. Fields that don't apply to a type are zero.
+ *
+ * @param sequence    position in the journal, assigned on append
+ * @param timestamp   when the change was made, epoch milliseconds
+ * @param videoId     video whose copies changed
+ * @param rentalId    rental, for RENTED and RETURNED
+ * @param userId      renting user, for RENTED and RETURNED
+ * @param quantity    copies rented or returned, or the new total for COPIES_CHANGED
+ * @param amountCents rental price for RENTED, late fee for RETURNED
+ */
+public record InventoryEvent(long sequence, long timestamp, Type type, long videoId, long rentalId, long userId,
+                             int quantity, long amountCents) {
+    
+    public enum Type {
+        RENTED(1),
+        RETURNED(2),
+        COPIES_CHANGED(3),
+        VIDEO_DELETED(4);
+        
+        private static final Type[] BY_CODE = {null, RENTED, RETURNED, COPIES_CHANGED, VIDEO_DELETED};
+        
+        final byte code;
+        
+        Type(int code) {
+            this.code = (byte) code;
+        }
+        
+        /**
+         * @return the type, or null for an unknown code (an empty or torn record)
+         */
+        static Type fromCode(byte code) {
+            return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        }
+    }
+    
+    public static InventoryEvent rented(long videoId, long rentalId, long userId, long rentalCents) {
+        return new InventoryEvent(0, System.currentTimeMillis(), Type.RENTED, videoId, rentalId, userId, 1, rentalCents);
+    }
+    
+    public static InventoryEvent returned(long videoId, long rentalId, long userId, long lateFeeCents) {
+        return new InventoryEvent(0, System.currentTimeMillis(), Type.RETURNED, videoId, rentalId, userId, 1, lateFeeCents);
+    }
+    
+    public static InventoryEvent copiesChanged(long videoId, int totalCopies) {
+        return new InventoryEvent(0, System.currentTimeMillis(), Type.COPIES_CHANGED, videoId, 0, 0, totalCopies, 0);
+    }
+    
+    public static InventoryEvent videoDeleted(long videoId) {
+        return new InventoryEvent(0, System.currentTimeMillis(), Type.VIDEO_DELETED, videoId, 0, 0, 0, 0);
+    }
+    
+    InventoryEvent withSequence(long sequence) {
+        return new InventoryEvent(sequence, timestamp, type, videoId, rentalId, userId, quantity, amountCents);
+    }
+}
@@ -0,0 +1,507 @@
+package com.rentvideo.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of inventory events in a directory of segment files.
+ *
+ * The active segment is preallocated and memory-mapped, so an append is a
+ * 64 byte copy into the page cache under a short lock, with no system call.
+ * Nothing is forced to disk on append: {@link #sync()} forces everything
+ * appended since the last sync with one msync, so a caller running it every
+ * few milliseconds gets group commit, and a crash loses at most that window.
+ * A full segment is forced, sealed and replaced by a new one named after the
+ * next sequence.
+ *
+ * {@link #compact(int)} folds old sealed segments into one, keeping only what
+ * is needed to rebuild the current inventory: the latest copy count of each
+ * video that still exists, and rentals not yet returned. Matched rent/return
+ * pairs and deleted videos are dropped, so replaying a compacted journal gives
+ * the same copies out per video, but not the same history.
+ *
+ * The directory is locked while the journal is open; a second process, or a
+ * second journal in the same JVM, fails to open it.
+ */
+@Slf4j
+public class InventoryJournal implements Closeable {
+    
+    private static final String LOCK_FILE = "journal.lock";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel lockChannel;
+    private final FileLock directoryLock;
+    
+    // Sealed segments by base sequence; the active one is not in here
+    private final NavigableMap<Long, JournalSegment> sealed = new ConcurrentSkipListMap<>();
+    
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    // Replays hold the read lock so compaction can't delete a segment under them
+    private final ReentrantReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    
+    private ActiveSegment active;
+    private long nextSequence;
+    private boolean closed;
+    
+    private final AtomicLong syncedSequence = new AtomicLong();
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong compactedEvents = new AtomicLong();
+    
+    /**
+     * Open the journal in the directory, creating it if needed, and recover
+     * the write position from the last segment
+     *
+     * @param segmentSize size of each segment file in bytes, rounded down to whole records
+     */
+    public InventoryJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < JournalSegment.HEADER_SIZE + JournalSegment.RECORD_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize - (segmentSize - JournalSegment.HEADER_SIZE) % JournalSegment.RECORD_SIZE;
+        
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Journal directory " + directory + " is in use");
+        }
+        directoryLock = lock;
+        
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            directoryLock.release();
+            lockChannel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Append an event, assigning it the next sequence. The event is in the
+     * page cache when this returns, and on disk after the next {@link #sync()}.
+     *
+     * @return the sequence of the event
+     */
+    public long append(InventoryEvent event) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (active.position + JournalSegment.RECORD_SIZE > segmentSize) {
+                roll();
+            }
+            long sequence = nextSequence++;
+            JournalSegment.encode(active.buffer, active.position, event.withSequence(sequence));
+            active.position += JournalSegment.RECORD_SIZE;
+            appends.incrementAndGet();
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Force every event appended so far to disk. Appends carry on while the
+     * force runs; they are covered by the next sync.
+     *
+     * @return true if there was anything to force
+     */
+    public boolean sync() {
+        long target;
+        MappedByteBuffer buffer;
+        appendLock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            target = nextSequence - 1;
+            buffer = active.buffer;
+        } finally {
+            appendLock.unlock();
+        }
+        if (target <= syncedSequence.get()) {
+            return false;
+        }
+        // A roll since the lock was released has forced this buffer already, forcing again is harmless
+        buffer.force();
+        syncedSequence.accumulateAndGet(target, Math::max);
+        syncs.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Pass every event with a sequence at or after fromSequence to the
+     * consumer, in sequence order. Events appended while the replay runs are
+     * not included. Blocks compaction, not appends, until it returns.
+     *
+     * @return sequence of the last event passed, or fromSequence - 1 if there was none
+     */
+    public long replay(long fromSequence, Consumer<InventoryEvent> consumer) throws IOException {
+        segmentsLock.readLock().lock();
+        try {
+            ActiveSegment current;
+            int limit;
+            appendLock.lock();
+            try {
+                if (closed) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                current = active;
+                limit = active.position;
+            } finally {
+                appendLock.unlock();
+            }
+            
+            AtomicLong last = new AtomicLong(fromSequence - 1);
+            Consumer<InventoryEvent> forward = event -> {
+                if (event.sequence() > last.get()) {
+                    consumer.accept(event);
+                    last.set(event.sequence());
+                }
+            };
+            
+            Long start = sealed.floorKey(fromSequence);
+            for (JournalSegment segment : sealed.tailMap(start != null ? start : 0L).values()) {
+                if (segment.baseSequence >= current.baseSequence) {
+                    break; // rolled after the snapshot, read from the buffer below instead
+                }
+                segment.read(forward);
+            }
+            for (int offset = JournalSegment.HEADER_SIZE; offset < limit; offset += JournalSegment.RECORD_SIZE) {
+                InventoryEvent event = JournalSegment.decode(current.buffer, offset);
+                if (event == null) {
+                    break;
+                }
+                forward.accept(event);
+            }
+            return last.get();
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Fold every sealed segment except the newest retainedSegments into one
+     * compacted segment. Replays wait while the files are swapped.
+     *
+     * @return number of events dropped
+     */
+    public int compact(int retainedSegments) throws IOException {
+        compactionLock.lock();
+        try {
+            List<JournalSegment> candidates = new ArrayList<>(sealed.values());
+            int count = candidates.size() - Math.max(0, retainedSegments);
+            if (count < 1 || (count == 1 && candidates.get(0).isCompacted())) {
+                return 0;
+            }
+            candidates = candidates.subList(0, count);
+            
+            long start = System.currentTimeMillis();
+            Folder folder = new Folder();
+            for (JournalSegment segment : candidates) {
+                segment.read(folder);
+            }
+            List<InventoryEvent> kept = folder.kept();
+            long base = candidates.get(0).baseSequence;
+            long through = folder.lastSequence;
+            for (JournalSegment segment : candidates) {
+                through = Math.max(through, Math.max(segment.compactedThrough, segment.baseSequence));
+            }
+            JournalSegment compacted = new JournalSegment(JournalSegment.pathFor(directory, base), base, through);
+            Path temp = directory.resolve(compacted.path.getFileName() + COMPACTING_SUFFIX);
+            writeCompacted(temp, compacted, kept);
+            
+            segmentsLock.writeLock().lock();
+            try {
+                Files.move(temp, compacted.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                sealed.put(base, compacted);
+                for (JournalSegment segment : candidates.subList(1, candidates.size())) {
+                    Files.deleteIfExists(segment.path);
+                    sealed.remove(segment.baseSequence);
+                }
+            } finally {
+                segmentsLock.writeLock().unlock();
+            }
+            
+            int dropped = folder.read - kept.size();
+            compactedEvents.addAndGet(dropped);
+            log.info("Compacted {} journal segments into one: kept {} of {} events in {} ms",
+                    candidates.size(), kept.size(), folder.read, System.currentTimeMillis() - start);
+            return dropped;
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            active.buffer.force();
+            active.channel.close();
+            directoryLock.release();
+            lockChannel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Sequence of the last appended event, 0 if the journal is empty
+     */
+    public long lastSequence() {
+        appendLock.lock();
+        try {
+            return nextSequence - 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    public long syncedSequence() {
+        return syncedSequence.get();
+    }
+    
+    /**
+     * Number of segment files, including the active one
+     */
+    public int segmentCount() {
+        return sealed.size() + 1;
+    }
+    
+    public long appendCount() {
+        return appends.get();
+    }
+    
+    public long syncCount() {
+        return syncs.get();
+    }
+    
+    public long compactedEventCount() {
+        return compactedEvents.get();
+    }
+    
+    private void recover() throws IOException {
+        List<JournalSegment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(COMPACTING_SUFFIX)) {
+                    // A compaction that didn't finish; its inputs are all still there
+                    Files.delete(path);
+                } else if (name.endsWith(JournalSegment.SUFFIX)) {
+                    JournalSegment segment = JournalSegment.open(path);
+                    if (segment != null) {
+                        segments.add(segment);
+                    } else {
+                        // Created by a roll that crashed before its header reached the disk
+                        log.warn("Removing journal segment {} with no header", path);
+                        Files.delete(path);
+                    }
+                }
+            }
+        }
+        segments.sort((a, b) -> Long.compare(a.baseSequence, b.baseSequence));
+        
+        // A crash between renaming a compacted segment into place and deleting its inputs leaves them behind
+        long compactedThrough = 0;
+        for (JournalSegment segment : segments) {
+            if (segment.baseSequence <= compactedThrough) {
+                Files.delete(segment.path);
+                continue;
+            }
+            sealed.put(segment.baseSequence, segment);
+            compactedThrough = Math.max(compactedThrough, segment.compactedThrough);
+        }
+        
+        Map.Entry<Long, JournalSegment> last = sealed.lastEntry();
+        if (last != null && !last.getValue().isCompacted() && Files.size(last.getValue().path) == segmentSize) {
+            sealed.remove(last.getKey());
+            active = ActiveSegment.map(last.getValue().path, last.getKey(), segmentSize, false);
+            nextSequence = resumeActive();
+        } else {
+            long lastSequence = 0;
+            if (last != null) {
+                JournalSegment segment = last.getValue();
+                lastSequence = Math.max(segment.read(event -> { }), Math.max(compactedThrough, segment.baseSequence - 1));
+            }
+            nextSequence = lastSequence + 1;
+            active = ActiveSegment.map(JournalSegment.pathFor(directory, nextSequence), nextSequence, segmentSize, true);
+        }
+        syncedSequence.set(nextSequence - 1);
+        log.info("Opened inventory journal in {}: {} segments, next sequence {}",
+                directory, segmentCount(), nextSequence);
+    }
+    
+    /**
+     * Find the end of the data in the reopened active segment and zero
+     * whatever follows, so a record torn by a crash can't resurface later
+     *
+     * @return the next sequence
+     */
+    private long resumeActive() throws IOException {
+        long lastSequence = active.baseSequence - 1;
+        int position = JournalSegment.HEADER_SIZE;
+        while (position + JournalSegment.RECORD_SIZE <= segmentSize) {
+            InventoryEvent event = JournalSegment.decode(active.buffer, position);
+            if (event == null) {
+                break;
+            }
+            lastSequence = event.sequence();
+            position += JournalSegment.RECORD_SIZE;
+        }
+        active.position = position;
+        
+        byte[] zeros = new byte[JournalSegment.RECORD_SIZE];
+        for (int offset = position; offset + JournalSegment.RECORD_SIZE <= segmentSize; offset += zeros.length) {
+            if (active.buffer.get(offset + 16) != 0) {
+                active.buffer.put(offset, zeros);
+            }
+        }
+        active.buffer.force();
+        return lastSequence + 1;
+    }
+    
+    /**
+     * Seal the full active segment and start a new one. Called with the append lock held.
+     */
+    private void roll() {
+        try {
+            active.buffer.force();
+            active.channel.close();
+            sealed.put(active.baseSequence, new JournalSegment(active.path, active.baseSequence, 0));
+            syncedSequence.accumulateAndGet(nextSequence - 1, Math::max);
+            active = ActiveSegment.map(JournalSegment.pathFor(directory, nextSequence), nextSequence, segmentSize, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll journal segment in " + directory, e);
+        }
+    }
+    
+    private static void writeCompacted(Path temp, JournalSegment segment, List<InventoryEvent> events)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalSegment.HEADER_SIZE + events.size() * JournalSegment.RECORD_SIZE);
+        JournalSegment.writeHeader(buffer, segment.baseSequence, segment.compactedThrough);
+        int offset = JournalSegment.HEADER_SIZE;
+        for (InventoryEvent event : events) {
+            JournalSegment.encode(buffer, offset, event);
+            offset += JournalSegment.RECORD_SIZE;
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+    
+    private static final class ActiveSegment {
+        
+        private final Path path;
+        private final long baseSequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position = JournalSegment.HEADER_SIZE;
+        
+        private ActiveSegment(Path path, long baseSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.baseSequence = baseSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+        
+        /**
+         * Map a segment file, preallocating and writing the header of a new one.
+         * The mapping outlives the channel and is released when the buffer is
+         * garbage collected.
+         */
+        static ActiveSegment map(Path path, long baseSequence, int size, boolean create) throws IOException {
+            FileChannel channel = create
+                    ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (create) {
+                JournalSegment.writeHeader(buffer, baseSequence, 0);
+                buffer.force();
+            }
+            return new ActiveSegment(path, baseSequence, channel, buffer);
+        }
+    }
+    
+    /**
+     * Keeps the events a compacted segment needs, as they are read in order
+     */
+    private static final class Folder implements Consumer<InventoryEvent> {
+        
+        private final Map<Long, InventoryEvent> copies = new HashMap<>();
+        private final Map<Long, InventoryEvent> openRentals = new LinkedHashMap<>();
+        private final List<InventoryEvent> unmatchedReturns = new ArrayList<>();
+        private int read;
+        private long lastSequence;
+        
+        @Override
+        public void accept(InventoryEvent event) {
+            read++;
+            lastSequence = event.sequence();
+            switch (event.type()) {
+                case RENTED -> openRentals.put(event.rentalId(), event);
+                case RETURNED -> {
+                    // Rented before the journal was switched on
+                    if (openRentals.remove(event.rentalId()) == null) {
+                        unmatchedReturns.add(event);
+                    }
+                }
+                case COPIES_CHANGED -> copies.put(event.videoId(), event);
+                case VIDEO_DELETED -> copies.remove(event.videoId());
+            }
+        }
+        
+        private List<InventoryEvent> kept() {
+            List<InventoryEvent> kept = new ArrayList<>(copies.values());
+            kept.addAll(openRentals.values());
+            kept.addAll(unmatchedReturns);
+            kept.sort((a, b) -> Long.compare(a.sequence(), b.sequence()));
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.rentvideo.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk layout of a journal segment, and a sealed segment's metadata.
+ *
+ * A segment file is named after the sequence of its first event and starts
+ * with a 64 byte header (magic, version, base sequence, and for a compacted
+ * segment the last sequence it covers). Events follow as fixed 64 byte
+ * records, so a record never straddles a page and the writer only ever bumps
+ * a position. Each record ends with a CRC32 of its contents; an all-zero
+ * record marks the end of the data, and a record whose checksum doesn't
+ * match was torn by a crash and ends it as well.
+ */
+final class JournalSegment {
+    
+    static final int RECORD_SIZE = 64;
+    static final int HEADER_SIZE = 64;
+    static final String SUFFIX = ".seg";
+    
+    private static final int MAGIC = 0x524A4E4C; // "RJNL"
+    private static final int VERSION = 1;
+    private static final int CHECKSUMMED = RECORD_SIZE - Integer.BYTES;
+    private static final int READ_BATCH = 4096;
+    
+    final Path path;
+    final long baseSequence;
+    final long compactedThrough;
+    
+    JournalSegment(Path path, long baseSequence, long compactedThrough) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.compactedThrough = compactedThrough;
+    }
+    
+    boolean isCompacted() {
+        return compactedThrough > 0;
+    }
+    
+    static Path pathFor(Path directory, long baseSequence) {
+        return directory.resolve(String.format("%020d%s", baseSequence, SUFFIX));
+    }
+    
+    static void writeHeader(ByteBuffer buffer, long baseSequence, long compactedThrough) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, baseSequence);
+        buffer.putLong(16, compactedThrough);
+    }
+    
+    /**
+     * Read the header of a segment file
+     *
+     * @return the segment, or null if the header was never written
+     */
+    static JournalSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            if (header.position() < HEADER_SIZE || header.getInt(0) == 0) {
+                return null;
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a journal segment: " + path);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported journal segment version " + header.getInt(4) + ": " + path);
+            }
+            return new JournalSegment(path, header.getLong(8), header.getLong(16));
+        }
+    }
+    
+    /**
+     * Write an event into the record starting at the given offset
+     */
+    static void encode(ByteBuffer buffer, int offset, InventoryEvent event) {
+        ByteBuffer record = buffer.slice(offset, RECORD_SIZE);
+        record.putLong(0, event.sequence());
+        record.putLong(8, event.timestamp());
+        record.put(16, event.type().code);
+        record.putLong(24, event.videoId());
+        record.putLong(32, event.rentalId());
+        record.putLong(40, event.userId());
+        record.putInt(48, event.quantity());
+        record.putLong(52, event.amountCents());
+        CRC32 crc = new CRC32();
+        crc.update(record.slice(0, CHECKSUMMED));
+        record.putInt(CHECKSUMMED, (int) crc.getValue());
+    }
+    
+    /**
+     * Read the record starting at the given offset
+     *
+     * @return the event, or null if the record is empty or torn
+     */
+    static InventoryEvent decode(ByteBuffer buffer, int offset) {
+        ByteBuffer record = buffer.slice(offset, RECORD_SIZE);
+        InventoryEvent.Type type = InventoryEvent.Type.fromCode(record.get(16));
+        if (type == null) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.slice(0, CHECKSUMMED));
+        if ((int) crc.getValue() != record.getInt(CHECKSUMMED)) {
+            return null;
+        }
+        return new InventoryEvent(record.getLong(0), record.getLong(8), type, record.getLong(24),
+                record.getLong(32), record.getLong(40), record.getInt(48), record.getLong(52));
+    }
+    
+    /**
+     * Pass every event in the segment file to the consumer, in order
+     *
+     * @return sequence of the last event read, or 0 if there was none
+     */
+    long read(Consumer<InventoryEvent> consumer) throws IOException {
+        long last = 0;
+        ByteBuffer batch = ByteBuffer.allocate(RECORD_SIZE * READ_BATCH);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = HEADER_SIZE;
+            while (true) {
+                batch.clear();
+                int read = 0;
+                while (batch.hasRemaining()) {
+                    int n = channel.read(batch, position + read);
+                    if (n < 0) {
+                        break;
+                    }
+                    read += n;
+                }
+                for (int offset = 0; offset + RECORD_SIZE <= read; offset += RECORD_SIZE) {
+                    InventoryEvent event = decode(batch, offset);
+                    if (event == null) {
+                        return last;
+                    }
+                    consumer.accept(event);
+                    last = event.sequence();
+                }
+                if (read < batch.capacity()) {
+                    return last;
+                }
+                position += read;
+            }
+        }
+    }
+}
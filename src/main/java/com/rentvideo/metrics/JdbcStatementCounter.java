@@ -0,0 +1,84 @@
+package com.rentvideo.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+
+/**
+ * Counts the JDBC statements Hibernate prepares on the current thread while
+ * a request is being counted. A JDBC batch is prepared once, so it counts
+ * as one statement, which matches the number of round trips.
+ */
+public class JdbcStatementCounter implements StatementInspector {
+    
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+    
+    public static final class Counts {
+        
+        private int selects;
+        private int inserts;
+        private int updates;
+        private int deletes;
+        private int other;
+        
+        public int selects() {
+            return selects;
+        }
+        
+        public int inserts() {
+            return inserts;
+        }
+        
+        public int updates() {
+            return updates;
+        }
+        
+        public int deletes() {
+            return deletes;
+        }
+        
+        public int other() {
+            return other;
+        }
+        
+        public int total() {
+            return selects + inserts + updates + deletes + other;
+        }
+    }
+    
+    /**
+     * Start counting on this thread; pair with {@link #stop()}
+     */
+    public static Counts start() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+    
+    public static void stop() {
+        CURRENT.remove();
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+            if (statement.startsWith("select next value for")) {
+                // Pooled id sequence, not a query
+                counts.other++;
+            } else if (statement.startsWith("select") || statement.startsWith("with")) {
+                counts.selects++;
+            } else if (statement.startsWith("insert")) {
+                counts.inserts++;
+            } else if (statement.startsWith("update")) {
+                counts.updates++;
+            } else if (statement.startsWith("delete")) {
+                counts.deletes++;
+            } else {
+                counts.other++;
+            }
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,75 @@
+package com.rentvideo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many JDBC statements each request issued, per URI template,
+ * so an N+1 regression shows up as a jump in jdbc.statements.per.request
+ * instead of as an outage. Runs outside the security chain so the JWT
+ * filter's user lookup is counted too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class JdbcStatementMetricsFilter extends OncePerRequestFilter {
+    
+    private final MeterRegistry meterRegistry;
+    
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        
+        JdbcStatementCounter.Counts counts = JdbcStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            JdbcStatementCounter.stop();
+            record(request, counts);
+        }
+    }
+    
+    private void record(HttpServletRequest request, JdbcStatementCounter.Counts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        
+        DistributionSummary.builder("jdbc.statements.per.request")
+                .description("JDBC statements issued while handling one request")
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .record(counts.total());
+        
+        increment("select", counts.selects());
+        increment("insert", counts.inserts());
+        increment("update", counts.updates());
+        increment("delete", counts.deletes());
+        increment("other", counts.other());
+    }
+    
+    private void increment(String type, int amount) {
+        if (amount > 0) {
+            Counter.builder("jdbc.statements")
+                    .description("JDBC statements issued by request handling, by type")
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .increment(amount);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.rentvideo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The single row counting committed catalog changes. Every transaction that
+ * writes videos increments it once, right before it commits.
+ */
+@Entity
+@Table(name = "catalog_version")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+    
+    public static final int ID = 1;
+    
+    @Id
+    private Integer id;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    // Database time of the last increment
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
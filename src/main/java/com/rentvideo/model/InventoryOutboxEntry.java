@@ -0,0 +1,58 @@
+package com.rentvideo.model;
+
+import com.rentvideo.journal.InventoryEvent;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An inventory event committed with the change it records, waiting to be
+ * appended to the inventory journal
+ */
+@Entity
+@Table(name = "inventory_outbox")
+@Data
+@NoArgsConstructor
+public class InventoryOutboxEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private InventoryEvent.Type eventType;
+    
+    // Epoch milliseconds, as in the journal
+    @Column(nullable = false)
+    private long eventTime;
+    
+    @Column(nullable = false)
+    private long videoId;
+    
+    @Column(nullable = false)
+    private long rentalId;
+    
+    @Column(nullable = false)
+    private long userId;
+    
+    @Column(nullable = false)
+    private int quantity;
+    
+    @Column(nullable = false)
+    private long amountCents;
+    
+    public InventoryOutboxEntry(InventoryEvent event) {
+        this.eventType = event.type();
+        this.eventTime = event.timestamp();
+        this.videoId = event.videoId();
+        this.rentalId = event.rentalId();
+        this.userId = event.userId();
+        this.quantity = event.quantity();
+        this.amountCents = event.amountCents();
+    }
+    
+    public InventoryEvent toEvent() {
+        return new InventoryEvent(0, eventTime, eventType, videoId, rentalId, userId, quantity, amountCents);
+    }
+}
@@ -11,14 +11,19 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "rentals")
+@Table(name = "rentals", indexes = {
+        // Overdue sweep: status = ACTIVE and due_date in a range
+        @Index(name = "idx_rentals_status_due_date", columnList = "status, due_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Rental {
     
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rentals_seq")
+    @SequenceGenerator(name = "rentals_seq", sequenceName = "rentals_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,68 @@
+package com.rentvideo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated rental revenue for one bucket of one dimension, e.g. the
+ * video with id 42, the genre "Drama" or the day 2024-03-01. Rentals and
+ * their price are booked on the rental date, returns and late fees on the
+ * return date.
+ */
+@Entity
+@Table(name = "revenue_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollup {
+    
+    @EmbeddedId
+    private Key key;
+    
+    @Column(nullable = false)
+    private Long rentals = 0L;
+    
+    @Column(nullable = false)
+    private Long returns = 0L;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal rentalRevenue = BigDecimal.ZERO;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal lateFees = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    public RevenueRollup(Key key) {
+        this.key = key;
+    }
+    
+    public enum Dimension {
+        ALL,
+        VIDEO,
+        GENRE,
+        DAY
+    }
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        
+        @Enumerated(EnumType.STRING)
+        @Column(length = 10)
+        private Dimension dimension;
+        
+        // Video id, genre name or ISO date; "all" for the grand total
+        @Column(length = 100)
+        private String bucket;
+    }
+}
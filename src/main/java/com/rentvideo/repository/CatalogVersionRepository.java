@@ -0,0 +1,22 @@
+package com.rentvideo.repository;
+
+import com.rentvideo.model.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+    
+    /**
+     * Move the catalog to its next version, stamped with the database clock.
+     * Holds the row lock until the surrounding transaction ends.
+     */
+    @Transactional
+    @Modifying
+    @Query("update CatalogVersion c set c.version = c.version + 1, c.updatedAt = local datetime " +
+           "where c.id = " + CatalogVersion.ID)
+    int increment();
+}
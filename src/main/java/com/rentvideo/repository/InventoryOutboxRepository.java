@@ -0,0 +1,17 @@
+package com.rentvideo.repository;
+
+import com.rentvideo.model.InventoryOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryOutboxRepository extends JpaRepository<InventoryOutboxEntry, Long> {
+    
+    /**
+     * The oldest committed entries, in the order they were inserted
+     */
+    List<InventoryOutboxEntry> findByOrderByIdAsc(Pageable pageable);
+}
@@ -1,15 +1,33 @@
 package com.rentvideo.repository;
 
+import com.rentvideo.dto.response.RentalResponse;
 import com.rentvideo.model.Rental;
 import com.rentvideo.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, Long> {
     
+    String RENTAL_RESPONSE_SELECT =
+            "select new com.rentvideo.dto.response.RentalResponse(" +
+            "r.id, u.id, u.username, v.id, v.title, r.rentalDate, r.dueDate, r.returnDate, " +
+            "r.rentalPrice, r.lateFee, r.totalAmount, r.status, r.createdAt) " +
+            "from Rental r join r.user u join r.video v ";
+    
     List<Rental> findByUser(User user);
     
     List<Rental> findByUserId(Long userId);
@@ -17,4 +35,49 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
     List<Rental> findByStatus(Rental.RentalStatus status);
     
     List<Rental> findByUserAndStatus(User user, Rental.RentalStatus status);
+    
+    @Query("select r from Rental r join fetch r.video join fetch r.user where r.id in :ids")
+    List<Rental> findAllWithVideoAndUserByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /*
+     * Overdue sweep, both served by the (status, due_date) index
+     */
+    
+    @Query("select min(r.dueDate) from Rental r where r.status = :status")
+    Optional<LocalDate> findEarliestDueDateByStatus(@Param("status") Rental.RentalStatus status);
+    
+    @Query("select r.id from Rental r where r.status = :status " +
+           "and r.dueDate > :after and r.dueDate < :before order by r.dueDate, r.id")
+    List<Long> findIdsByStatusAndDueDateBetween(@Param("status") Rental.RentalStatus status,
+                                                @Param("after") LocalDate after,
+                                                @Param("before") LocalDate before,
+                                                Pageable pageable);
+    
+    @Modifying
+    @Query("update Rental r set r.status = :to where r.id in :ids and r.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("from") Rental.RentalStatus from,
+                     @Param("to") Rental.RentalStatus to);
+    
+    /*
+     * Read-only projections: one joined SELECT straight into RentalResponse,
+     * no entity hydration, no lazy loading of user or video per row.
+     */
+    
+    @Query(RENTAL_RESPONSE_SELECT + "order by r.id")
+    List<RentalResponse> findAllRentalResponses();
+    
+    @Query(RENTAL_RESPONSE_SELECT + "where r.status in :statuses order by r.id")
+    List<RentalResponse> findRentalResponsesByStatusIn(@Param("statuses") Collection<Rental.RentalStatus> statuses);
+    
+    @Query(RENTAL_RESPONSE_SELECT + "where u.username = :username order by r.id")
+    List<RentalResponse> findRentalResponsesByUsername(@Param("username") String username);
+    
+    /**
+     * Forward-only cursor over the whole rental history, for exports. Must be
+     * consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RENTAL_RESPONSE_SELECT + "order by r.id")
+    Stream<RentalResponse> streamAllRentalResponses();
 }
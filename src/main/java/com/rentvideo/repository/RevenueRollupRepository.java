@@ -0,0 +1,59 @@
+package com.rentvideo.repository;
+
+import com.rentvideo.model.RevenueRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup, RevenueRollup.Key> {
+    
+    List<RevenueRollup> findByKeyDimensionOrderByKeyBucket(RevenueRollup.Dimension dimension);
+    
+    // ISO dates sort as strings, so a bucket range is a date range
+    List<RevenueRollup> findByKeyDimensionAndKeyBucketBetweenOrderByKeyBucket(RevenueRollup.Dimension dimension,
+                                                                             String from, String to);
+    
+    /**
+     * Add a delta to an existing rollup row
+     *
+     * @return 0 if the row doesn't exist yet
+     */
+    @Modifying
+    @Query("update RevenueRollup r set " +
+           "r.rentals = r.rentals + :rentals, " +
+           "r.returns = r.returns + :returns, " +
+           "r.rentalRevenue = r.rentalRevenue + :rentalRevenue, " +
+           "r.lateFees = r.lateFees + :lateFees, " +
+           "r.updatedAt = local datetime " +
+           "where r.key = :key")
+    int addDelta(@Param("key") RevenueRollup.Key key,
+                 @Param("rentals") long rentals,
+                 @Param("returns") long returns,
+                 @Param("rentalRevenue") BigDecimal rentalRevenue,
+                 @Param("lateFees") BigDecimal lateFees);
+    
+    /*
+     * Aggregates over the rental history, for rebuilds. Each row is
+     * [bucket, count, amount].
+     */
+    
+    @Query("select r.video.id, count(r), sum(r.rentalPrice) from Rental r group by r.video.id")
+    List<Object[]> sumRentalsByVideo();
+    
+    @Query("select r.video.id, count(r), coalesce(sum(r.lateFee), 0) from Rental r " +
+           "where r.returnDate is not null group by r.video.id")
+    List<Object[]> sumReturnsByVideo();
+    
+    @Query("select r.rentalDate, count(r), sum(r.rentalPrice) from Rental r group by r.rentalDate")
+    List<Object[]> sumRentalsByDay();
+    
+    @Query("select r.returnDate, count(r), coalesce(sum(r.lateFee), 0) from Rental r " +
+           "where r.returnDate is not null group by r.returnDate")
+    List<Object[]> sumReturnsByDay();
+}
@@ -1,10 +1,22 @@
 package com.rentvideo.repository;
 
 import com.rentvideo.model.Video;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VideoRepository extends JpaRepository<Video, Long> {
@@ -16,4 +28,71 @@ public interface VideoRepository extends JpaRepository<Video, Long> {
     List<Video> findByTitleContainingIgnoreCase(String title);
     
     List<Video> findByReleaseYear(Integer releaseYear);
+    
+    /**
+     * Forward-only cursor over the catalog, for exports. Must be consumed
+     * inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select v from Video v order by v.id")
+    Stream<Video> streamAll();
+    
+    /**
+     * Id and updated_at of every video, in id order
+     */
+    @Query("select v.id, v.updatedAt from Video v order by v.id")
+    List<Object[]> findAllUpdatedAt();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from Video v where v.id = :id")
+    Optional<Video> findByIdForUpdate(@Param("id") Long id);
+    
+    @Query("select v.id, v.genre from Video v")
+    List<Object[]> findAllGenres();
+    
+    /**
+     * Lower-cased title and release year of videos whose trimmed, lower-cased title is in titles
+     */
+    @Query("select lower(trim(v.title)), v.releaseYear from Video v where lower(trim(v.title)) in :titles")
+    List<Object[]> findTitleKeysByNormalizedTitleIn(@Param("titles") Collection<String> titles);
+    
+    @Query("select coalesce(sum(v.totalCopies), 0) from Video v")
+    long sumTotalCopies();
+    
+    @Query("select v.updatedAt from Video v where v.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+    
+    /**
+     * Callers keep ids to a bounded number per call
+     */
+    @Query("select v.id, v.updatedAt from Video v where v.id in :ids")
+    List<Object[]> findUpdatedAtByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("select v.availableCopies from Video v where v.id = :id")
+    Optional<Integer> findAvailableCopiesById(@Param("id") Long id);
+    
+    /**
+     * Take copies only if enough are left. Returns the number of rows updated (0 or 1).
+     * The available flag is assigned first so it sees the old copy count on MySQL too.
+     * now stamps updated_at from the JVM clock, like entity saves.
+     */
+    @Modifying
+    @Query("update Video v set " +
+           "v.available = case when v.availableCopies > :count then true else false end, " +
+           "v.availableCopies = v.availableCopies - :count, " +
+           "v.updatedAt = :now " +
+           "where v.id = :id and v.availableCopies >= :count")
+    int decrementAvailableCopies(@Param("id") Long id, @Param("count") int count, @Param("now") LocalDateTime now);
+    
+    /**
+     * Put copies back, never above totalCopies. Returns 0 if all copies were already on the shelf.
+     */
+    @Modifying
+    @Query("update Video v set " +
+           "v.available = true, " +
+           "v.availableCopies = case when v.availableCopies + :count > v.totalCopies " +
+           "then v.totalCopies else v.availableCopies + :count end, " +
+           "v.updatedAt = :now " +
+           "where v.id = :id and v.availableCopies < v.totalCopies")
+    int incrementAvailableCopies(@Param("id") Long id, @Param("count") int count, @Param("now") LocalDateTime now);
 }
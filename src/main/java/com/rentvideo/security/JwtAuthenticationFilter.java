@@ -1,14 +1,20 @@
 package com.rentvideo.security;
 
 import com.rentvideo.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -16,11 +22,26 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
+    private final Timer parseTimer;
+    private final Timer userLookupTimer;
+    
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+                                   MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry;
+        this.parseTimer = Timer.builder("auth.jwt.parse")
+                .description("Time to verify a bearer token and read its claims")
+                .register(meterRegistry);
+        this.userLookupTimer = Timer.builder("auth.jwt.user.lookup")
+                .description("Time to load the token's user")
+                .register(meterRegistry);
+    }
     
     @Override
     protected void doFilterInternal(
@@ -31,6 +52,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final Claims claims;
         final String username;
         
         // Check if Authorization header exists and starts with "Bearer "
@@ -43,17 +65,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            // Extract username from JWT
-            username = jwtUtil.extractUsername(jwt);
+            // Parse the JWT once; its claims serve both the lookup and the validation
+            claims = parseTimer.recordCallable(() -> jwtUtil.extractAllClaims(jwt));
+            username = claims.getSubject();
             
             // If username is found and no authentication is set in context
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 
                 // Load user details
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = userLookupTimer.recordCallable(
+                        () -> userDetailsService.loadUserByUsername(username));
                 
-                // Validate token
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                // Validate token (deactivated users lose access immediately)
+                if (!userDetails.isEnabled()) {
+                    recordFailure("disabled");
+                } else if (!jwtUtil.validateToken(claims, userDetails)) {
+                    recordFailure("invalid");
+                } else {
                     
                     // Create authentication token
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -69,11 +97,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
+        } catch (ExpiredJwtException e) {
+            recordFailure("expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            recordFailure("invalid");
+        } catch (UsernameNotFoundException e) {
+            recordFailure("user_not_found");
         } catch (Exception e) {
             // Log error and continue filter chain
+            recordFailure("error");
             logger.error("Cannot set user authentication: {}", e);
         }
         
         filterChain.doFilter(request, response);
     }
+    
+    private void recordFailure(String reason) {
+        Counter.builder("auth.jwt.failures")
+                .description("Bearer tokens that did not authenticate the request")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
 }
@@ -1,17 +1,27 @@
 package com.rentvideo.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 @Component
@@ -23,6 +33,35 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+    
+    private SecretKey signingKey;
+    
+    private JwtParser parser;
+    
+    /**
+     * Claims of tokens whose signature has already been verified, keyed by the
+     * SHA-256 digest of the token so raw tokens are never kept in memory.
+     */
+    private final ConcurrentMap<String, VerifiedClaims> verifiedTokens = new ConcurrentHashMap<>();
+    
+    private final AtomicLong cacheHits = new AtomicLong();
+    
+    private final AtomicLong cacheMisses = new AtomicLong();
+    
+    /**
+     * Decode the signing key and build the parser once
+     */
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+    
     /**
      * Extract username from JWT token
      */
@@ -46,21 +85,44 @@ public class JwtUtil {
     }
     
     /**
-     * Extract all claims from JWT token
+     * Extract all claims from JWT token, verifying the signature only the first
+     * time a token is seen. Callers that need several claims of one token should
+     * read them all from the returned Claims.
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Claims extractAllClaims(String token) {
+        if (cacheMaxSize <= 0) {
+            return parseClaims(token);
+        }
+        
+        String digest = digest(token);
+        VerifiedClaims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (!cached.isExpired(System.currentTimeMillis())) {
+                cacheHits.incrementAndGet();
+                return cached.claims();
+            }
+            // Expired, let the parser raise the usual ExpiredJwtException
+            verifiedTokens.remove(digest, cached);
+        }
+        
+        cacheMisses.incrementAndGet();
+        Claims claims = parseClaims(token);
+        if (claims.getExpiration() != null) {
+            makeRoom();
+            verifiedTokens.put(digest, new VerifiedClaims(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+    
+    private Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     /**
      * Check if token is expired
      */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
     
     /**
@@ -87,7 +149,7 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
@@ -95,15 +157,70 @@ public class JwtUtil {
      * Validate token
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(extractAllClaims(token), userDetails);
     }
     
     /**
-     * Get signing key from secret
+     * Validate the claims of a token that has already been parsed
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
+    }
+    
+    /**
+     * Number of lookups answered from the verified-token cache
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+    
+    /**
+     * Number of lookups that had to verify the token signature
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+    
+    /**
+     * Number of verified tokens currently cached
+     */
+    public int getCacheSize() {
+        return verifiedTokens.size();
+    }
+    
+    /**
+     * Keep the cache under its bound: drop expired tokens first, then
+     * arbitrary entries until a tenth of the capacity is free again
+     */
+    private void makeRoom() {
+        if (verifiedTokens.size() < cacheMaxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        verifiedTokens.values().removeIf(entry -> entry.isExpired(now));
+        
+        int target = cacheMaxSize - Math.max(1, cacheMaxSize / 10);
+        Iterator<String> keys = verifiedTokens.keySet().iterator();
+        while (verifiedTokens.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record VerifiedClaims(Claims claims, long expiresAtMillis) {
+        
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
     }
 }
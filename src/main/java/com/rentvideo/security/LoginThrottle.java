@@ -0,0 +1,115 @@
+package com.rentvideo.security;
+
+import com.rentvideo.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket throttling of login attempts, per username and per client
+ * address, checked before any password is hashed. The username limit stops
+ * guessing against one account from many addresses; the client limit stops
+ * one address from spraying many accounts.
+ *
+ * Every attempt spends a client token up front, but a username token is only
+ * spent by a failed login: before authentication the username bucket is just
+ * read. Otherwise anyone could lock an account out by sending logins for it,
+ * password or no password, and each successful login of its owner would cost
+ * them a token too.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+    
+    @Value("${auth.login-limit.username.capacity:5}")
+    private int usernameCapacity;
+    
+    @Value("${auth.login-limit.username.refill-period:12000}")
+    private long usernameRefillPeriod;
+    
+    @Value("${auth.login-limit.client.capacity:50}")
+    private int clientCapacity;
+    
+    @Value("${auth.login-limit.client.refill-period:1200}")
+    private long clientRefillPeriod;
+    
+    @Value("${auth.login-limit.idle-timeout:600000}")
+    private long idleTimeout;
+    
+    @Value("${auth.login-limit.max-buckets:100000}")
+    private int maxBuckets;
+    
+    private TokenBucketLimiter usernameLimiter;
+    private TokenBucketLimiter clientLimiter;
+    
+    private final AtomicLong rejectedByUsername = new AtomicLong();
+    private final AtomicLong rejectedByClient = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        usernameLimiter = new TokenBucketLimiter(usernameCapacity, usernameRefillPeriod, idleTimeout,
+                TimeUnit.MILLISECONDS, maxBuckets);
+        clientLimiter = new TokenBucketLimiter(clientCapacity, clientRefillPeriod, idleTimeout,
+                TimeUnit.MILLISECONDS, maxBuckets);
+    }
+    
+    /**
+     * Spend one login attempt for the client, and check that the username has
+     * failed attempts left
+     *
+     * @throws TooManyRequestsException if either is out of attempts
+     */
+    public void check(String username, String clientAddress) {
+        long wait = clientLimiter.tryAcquire(clientAddress);
+        if (wait > 0) {
+            rejectedByClient.incrementAndGet();
+            log.warn("Login throttled for client {}", clientAddress);
+            throw new TooManyRequestsException("Too many login attempts, please try again later", wait);
+        }
+        
+        wait = usernameLimiter.peek(usernameKey(username));
+        if (wait > 0) {
+            rejectedByUsername.incrementAndGet();
+            log.warn("Login throttled for username {}", username);
+            throw new TooManyRequestsException("Too many login attempts, please try again later", wait);
+        }
+    }
+    
+    /**
+     * Spend one attempt for a username whose password was wrong
+     */
+    public void recordFailure(String username) {
+        usernameLimiter.tryAcquire(usernameKey(username));
+    }
+    
+    // Usernames are matched case-insensitively by MySQL, so don't let case bypass the limit
+    private static String usernameKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+    
+    @Scheduled(fixedDelayString = "${auth.login-limit.idle-timeout:600000}")
+    public void evictIdle() {
+        int evicted = usernameLimiter.evictIdle() + clientLimiter.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle login buckets", evicted);
+        }
+    }
+    
+    public int getBucketCount() {
+        return usernameLimiter.size() + clientLimiter.size();
+    }
+    
+    public long getRejectedByUsername() {
+        return rejectedByUsername.get();
+    }
+    
+    public long getRejectedByClient() {
+        return rejectedByClient.get();
+    }
+}
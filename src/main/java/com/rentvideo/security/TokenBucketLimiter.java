@@ -0,0 +1,186 @@
+package com.rentvideo.security;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by string, e.g. username or client address.
+ *
+ * Keys are spread over a fixed number of stripes, each guarded by its own
+ * lock, so unrelated keys rarely contend. Each stripe is an access-ordered
+ * map capped at its share of maxBuckets: when full, the least recently used
+ * bucket is dropped, so memory stays bounded however many keys an attacker
+ * invents. Dropping a bucket only forgets spent tokens; callers should pair
+ * a per-user limiter with a per-client one so that churning keys doesn't
+ * buy unlimited attempts.
+ */
+public class TokenBucketLimiter {
+    
+    private static final int STRIPES = 64;
+    
+    private final int capacity;
+    private final long nanosPerToken;
+    private final long idleNanos;
+    private final int maxBucketsPerStripe;
+    private final LongSupplier nanoClock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    
+    /**
+     * @param capacity      burst size, and tokens a new bucket starts with
+     * @param refillPeriod  time to earn back one token
+     * @param idleTimeout   buckets untouched this long are evicted by {@link #evictIdle()}
+     * @param maxBuckets    upper bound on buckets kept in memory
+     */
+    public TokenBucketLimiter(int capacity, long refillPeriod, long idleTimeout, TimeUnit unit, int maxBuckets) {
+        this(capacity, refillPeriod, idleTimeout, unit, maxBuckets, System::nanoTime);
+    }
+    
+    TokenBucketLimiter(int capacity, long refillPeriod, long idleTimeout, TimeUnit unit, int maxBuckets,
+                       LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.nanosPerToken = unit.toNanos(refillPeriod);
+        this.idleNanos = unit.toNanos(idleTimeout);
+        this.maxBucketsPerStripe = Math.max(1, (maxBuckets + STRIPES - 1) / STRIPES);
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    /**
+     * Take one token for the key
+     *
+     * @return 0 if a token was taken, otherwise milliseconds until one is available
+     */
+    public long tryAcquire(String key) {
+        Stripe stripe = stripeFor(key);
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            }
+            return bucket.tryTake(now);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Check the key's bucket without taking a token or creating the bucket
+     *
+     * @return 0 if a token is available, otherwise milliseconds until one is
+     */
+    public long peek(String key) {
+        Stripe stripe = stripeFor(key);
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            return bucket == null ? 0 : bucket.waitFor(now);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Drop buckets that have not been used for idleTimeout. A bucket idle that
+     * long has refilled anyway, so forgetting it changes nothing.
+     *
+     * @return number of buckets evicted
+     */
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                // Access order: least recently used first, stop at the first live one
+                Iterator<Bucket> buckets = stripe.buckets.values().iterator();
+                while (buckets.hasNext()) {
+                    if (now - buckets.next().lastUsed < idleNanos) {
+                        break;
+                    }
+                    buckets.remove();
+                    evicted++;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return evicted;
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+    
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+    
+    private final class Stripe {
+        
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxBucketsPerStripe;
+            }
+        };
+    }
+    
+    private final class Bucket {
+        
+        private double tokens;
+        private long lastRefill;
+        private long lastUsed;
+        
+        private Bucket(int tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+            this.lastUsed = now;
+        }
+        
+        private long tryTake(long now) {
+            tokens = refilled(now);
+            lastRefill = now;
+            lastUsed = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return waitMillis(tokens);
+        }
+        
+        private long waitFor(long now) {
+            double available = refilled(now);
+            return available >= 1 ? 0 : waitMillis(available);
+        }
+        
+        private double refilled(long now) {
+            return Math.min(capacity, tokens + (double) (now - lastRefill) / nanosPerToken);
+        }
+        
+        private long waitMillis(double available) {
+            long waitNanos = (long) Math.ceil((1 - available) * nanosPerToken);
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+}
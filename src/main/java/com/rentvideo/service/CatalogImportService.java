@@ -0,0 +1,554 @@
+package com.rentvideo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.rentvideo.dto.request.VideoRequest;
+import com.rentvideo.dto.response.CatalogImportResponse;
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.exception.BadRequestException;
+import com.rentvideo.exception.ServiceUnavailableException;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk catalog import from CSV (with a header row) or JSON lines of
+ * {@link VideoRequest} records.
+ *
+ * The input is read one chunk of rows at a time, so memory use depends on
+ * the chunk size, not the file. Each chunk is parsed and validated on a small
+ * pool, checked for duplicates against the catalog with one query, and
+ * inserted with one JDBC batch in its own transaction. Videos have IDENTITY
+ * ids, which stop Hibernate from batching inserts, so the batch goes through
+ * JdbcTemplate and the generated keys are read back to publish the usual
+ * change events. A chunk that fails to save is reported row by row and the
+ * import carries on with the next one.
+ *
+ * A video is a duplicate if one with the same title (ignoring case and
+ * surrounding spaces) and release year exists, or appeared earlier in the
+ * file. Only one import runs at a time.
+ *
+ * The duplicate check is best-effort. It reads committed videos before each
+ * chunk's transaction, and nothing in the schema enforces it, so a video
+ * created or renamed through the API while a chunk is being saved can still
+ * end up next to an imported copy. The API itself allows such pairs, so no
+ * unique index backs the check, and existing catalogs may already hold
+ * them. Delete the extra copy if that happens.
+ */
+@Service
+@Slf4j
+public class CatalogImportService {
+    
+    public enum Format {
+        CSV,
+        NDJSON;
+        
+        /**
+         * Format for a request content type, CSV for text/csv, JSON lines otherwise
+         */
+        public static Format of(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv") ? CSV : NDJSON;
+        }
+    }
+    
+    private static final String INSERT_SQL = "INSERT INTO videos (title, description, director, genre, release_year, "
+            + "duration_minutes, rental_price_per_day, total_copies, available_copies, cover_image_url, available, "
+            + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // CSV header names, lower case without separators, to VideoRequest properties
+    private static final Map<String, String> COLUMNS = Set.of("title", "description", "director", "genre",
+                    "releaseYear", "durationMinutes", "rentalPricePerDay", "totalCopies", "coverImageUrl").stream()
+            .collect(Collectors.toMap(name -> name.toLowerCase(Locale.ROOT), name -> name));
+    
+    private final VideoRepository videoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryJournalService inventoryJournal;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    
+    @Value("${catalog.import.chunk-size:1000}")
+    private int chunkSize = 1000;
+    
+    @Value("${catalog.import.threads:0}")
+    private int threads;
+    
+    private final Semaphore running = new Semaphore(1);
+    private ExecutorService validationPool;
+    
+    public CatalogImportService(VideoRepository videoRepository, JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                                InventoryJournalService inventoryJournal, Validator validator, ObjectMapper objectMapper) {
+        this.videoRepository = videoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.inventoryJournal = inventoryJournal;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(VideoRequest.class);
+    }
+    
+    @PostConstruct
+    void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        validationPool = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void close() {
+        validationPool.shutdownNow();
+    }
+    
+    /**
+     * Import a catalog, writing the report to out as NDJSON: a line per
+     * rejected or duplicate row, a progress line after every chunk and a
+     * summary at the end. Output is flushed with each progress line.
+     */
+    public CatalogImportResponse importCatalog(InputStream in, Format format, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(CatalogImportResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // Lines are ended explicitly, no separator before the next value
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            CatalogImportResponse summary = importCatalog(in, format, line -> {
+                try {
+                    writer.writeValue(generator, line);
+                    generator.writeRaw('\n');
+                    if (!CatalogImportResponse.ERROR.equals(line.getType())
+                            && !CatalogImportResponse.DUPLICATE.equals(line.getType())) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            // Not closed on failure: closing flushes, which would commit an empty
+            // response before the error status could be sent
+            generator.close();
+            return summary;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Import a catalog, passing each report line to the listener
+     *
+     * @return the summary
+     * @throws BadRequestException if the CSV header names an unknown column
+     * @throws ServiceUnavailableException if another import is running
+     */
+    public CatalogImportResponse importCatalog(InputStream in, Format format,
+                                               Consumer<CatalogImportResponse> listener) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new ServiceUnavailableException("A catalog import is already running");
+        }
+        try {
+            return doImport(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), format, listener);
+        } finally {
+            running.release();
+        }
+    }
+    
+    private CatalogImportResponse doImport(BufferedReader reader, Format format,
+                                           Consumer<CatalogImportResponse> listener) throws IOException {
+        Totals totals = new Totals(System.currentTimeMillis());
+        Set<String> seen = new HashSet<>();
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        RowSource source = format == Format.CSV ? new CsvSource(reader) : new JsonLinesSource(reader);
+        
+        List<RawRow> chunk = new ArrayList<>(chunkSize);
+        RawRow row;
+        while ((row = source.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, seen, totals, listener);
+                listener.accept(totals.report(CatalogImportResponse.PROGRESS));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seen, totals, listener);
+        }
+        
+        CatalogImportResponse summary = totals.report(CatalogImportResponse.SUMMARY);
+        listener.accept(summary);
+        log.info("Catalog import: {} rows, {} imported, {} duplicates, {} failed in {} ms", summary.getRows(),
+                summary.getImported(), summary.getDuplicates(), summary.getFailed(), summary.getElapsedMillis());
+        return summary;
+    }
+    
+    private void importChunk(List<RawRow> chunk, Set<String> seen, Totals totals,
+                             Consumer<CatalogImportResponse> listener) throws IOException {
+        totals.rows += chunk.size();
+        
+        List<ParsedRow> valid = new ArrayList<>();
+        for (ParsedRow parsed : parseAll(chunk)) {
+            if (parsed.error() != null) {
+                totals.failed++;
+                listener.accept(CatalogImportResponse.error(parsed.row(), parsed.title(), parsed.error()));
+            } else {
+                valid.add(parsed);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        
+        Set<String> existing = existingKeys(valid);
+        List<ParsedRow> fresh = new ArrayList<>();
+        for (ParsedRow parsed : valid) {
+            String key = key(parsed.request().getTitle(), parsed.request().getReleaseYear());
+            if (existing.contains(key) || !seen.add(key)) {
+                totals.duplicates++;
+                listener.accept(CatalogImportResponse.duplicate(parsed.row(), parsed.title()));
+            } else {
+                fresh.add(parsed);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+        
+        List<Video> videos = fresh.stream().map(parsed -> toVideo(parsed.request())).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insert(videos);
+                for (Video video : videos) {
+                    inventoryJournal.recordCopies(video);
+                    eventPublisher.publishEvent(VideoChangedEvent.created(video));
+                }
+            });
+            totals.imported += videos.size();
+        } catch (RuntimeException e) {
+            log.warn("Catalog import chunk of {} rows could not be saved", videos.size(), e);
+            for (ParsedRow parsed : fresh) {
+                seen.remove(key(parsed.request().getTitle(), parsed.request().getReleaseYear()));
+                totals.failed++;
+                listener.accept(CatalogImportResponse.error(parsed.row(), parsed.title(),
+                        "Could not be saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+    }
+    
+    /**
+     * Parse and validate a chunk on the pool, results in input order
+     */
+    private List<ParsedRow> parseAll(List<RawRow> chunk) throws IOException {
+        List<Callable<ParsedRow>> tasks = new ArrayList<>(chunk.size());
+        for (RawRow row : chunk) {
+            tasks.add(() -> parse(row));
+        }
+        try {
+            List<ParsedRow> parsed = new ArrayList<>(chunk.size());
+            for (Future<ParsedRow> future : validationPool.invokeAll(tasks)) {
+                parsed.add(future.get());
+            }
+            return parsed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Catalog import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Catalog import validation failed", e.getCause());
+        }
+    }
+    
+    private ParsedRow parse(RawRow row) {
+        VideoRequest request;
+        try {
+            request = row.line() != null ? requestReader.readValue(row.line()) : fromCsv(row);
+        } catch (MismatchedInputException e) {
+            String field = e.getPath().isEmpty() ? null : e.getPath().get(0).getFieldName();
+            return ParsedRow.error(row.row(), null, field != null ? "Invalid value for " + field : "Malformed row");
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return ParsedRow.error(row.row(), null, "Malformed row");
+        }
+        
+        Set<ConstraintViolation<VideoRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return ParsedRow.error(row.row(), request.getTitle(), message);
+        }
+        return new ParsedRow(row.row(), request, null);
+    }
+    
+    private VideoRequest fromCsv(RawRow row) throws JsonProcessingException {
+        List<String> header = row.header();
+        List<String> fields = row.fields();
+        if (fields.size() > header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " fields, found " + fields.size());
+        }
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i).trim();
+            if (!value.isEmpty()) {
+                node.put(header.get(i), value);
+            }
+        }
+        return objectMapper.treeToValue(node, VideoRequest.class);
+    }
+    
+    /**
+     * Keys of the chunk's titles that are already in the catalog, with one query
+     */
+    private Set<String> existingKeys(List<ParsedRow> rows) {
+        Set<String> titles = rows.stream()
+                .map(parsed -> normalize(parsed.request().getTitle()))
+                .collect(Collectors.toSet());
+        Set<String> keys = new HashSet<>();
+        for (Object[] existing : videoRepository.findTitleKeysByNormalizedTitleIn(titles)) {
+            keys.add(key((String) existing[0], (Integer) existing[1]));
+        }
+        return keys;
+    }
+    
+    private void insert(List<Video> videos) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Video video = videos.get(i);
+                        ps.setString(1, video.getTitle());
+                        ps.setString(2, video.getDescription());
+                        ps.setString(3, video.getDirector());
+                        ps.setString(4, video.getGenre());
+                        ps.setInt(5, video.getReleaseYear());
+                        ps.setInt(6, video.getDurationMinutes());
+                        ps.setBigDecimal(7, video.getRentalPricePerDay());
+                        ps.setInt(8, video.getTotalCopies());
+                        ps.setInt(9, video.getAvailableCopies());
+                        ps.setString(10, video.getCoverImageUrl());
+                        ps.setBoolean(11, video.getAvailable());
+                        ps.setTimestamp(12, Timestamp.valueOf(video.getCreatedAt()));
+                        ps.setTimestamp(13, Timestamp.valueOf(video.getUpdatedAt()));
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return videos.size();
+                    }
+                }, keyHolder);
+        
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != videos.size()) {
+            throw new IllegalStateException("Expected " + videos.size() + " generated ids, got " + keys.size());
+        }
+        for (int i = 0; i < videos.size(); i++) {
+            videos.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+    
+    // Same defaults as VideoService.createVideo
+    private static Video toVideo(VideoRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        Video video = new Video();
+        video.setTitle(request.getTitle().trim());
+        video.setDescription(request.getDescription());
+        video.setDirector(request.getDirector());
+        video.setGenre(request.getGenre());
+        video.setReleaseYear(request.getReleaseYear());
+        video.setDurationMinutes(request.getDurationMinutes());
+        video.setRentalPricePerDay(request.getRentalPricePerDay());
+        video.setTotalCopies(request.getTotalCopies());
+        video.setAvailableCopies(request.getTotalCopies());
+        video.setCoverImageUrl(request.getCoverImageUrl());
+        video.setAvailable(true);
+        video.setCreatedAt(now);
+        video.setUpdatedAt(now);
+        return video;
+    }
+    
+    private static String normalize(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String key(String title, Integer releaseYear) {
+        return normalize(title) + "\u0000" + releaseYear;
+    }
+    
+    /**
+     * A row as read from the input: a JSON line, or CSV fields with the header
+     */
+    private record RawRow(long row, String line, List<String> header, List<String> fields) {
+    }
+    
+    private record ParsedRow(long row, VideoRequest request, String error) {
+        
+        static ParsedRow error(long row, String title, String error) {
+            VideoRequest request = new VideoRequest();
+            request.setTitle(title);
+            return new ParsedRow(row, request, error);
+        }
+        
+        String title() {
+            return request.getTitle();
+        }
+    }
+    
+    private interface RowSource {
+        
+        /**
+         * @return the next non-blank row, or null at end of input
+         */
+        RawRow next() throws IOException;
+    }
+    
+    private static final class JsonLinesSource implements RowSource {
+        
+        private final BufferedReader reader;
+        private long line;
+        
+        private JsonLinesSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+        
+        @Override
+        public RawRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (!text.isBlank()) {
+                    return new RawRow(line, text, null, null);
+                }
+            }
+            return null;
+        }
+    }
+    
+    private static final class CsvSource implements RowSource {
+        
+        private final CsvRecordReader reader;
+        private List<String> header;
+        
+        private CsvSource(BufferedReader reader) {
+            this.reader = new CsvRecordReader(reader);
+        }
+        
+        @Override
+        public RawRow next() throws IOException {
+            if (header == null) {
+                header = readHeader();
+                if (header == null) {
+                    return null;
+                }
+            }
+            while (true) {
+                long line = reader.line();
+                List<String> fields = reader.next();
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.stream().anyMatch(field -> !field.isBlank())) {
+                    return new RawRow(line, null, header, fields);
+                }
+            }
+        }
+        
+        private List<String> readHeader() throws IOException {
+            List<String> names = reader.next();
+            if (names == null) {
+                return null;
+            }
+            List<String> properties = new ArrayList<>(names.size());
+            for (String name : names) {
+                String property = COLUMNS.get(name.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT));
+                if (property == null) {
+                    throw new BadRequestException("Unknown CSV column: " + name);
+                }
+                properties.add(property);
+            }
+            if (!properties.contains("title")) {
+                throw new BadRequestException("CSV header has no title column");
+            }
+            return properties;
+        }
+    }
+    
+    private static final class Totals {
+        
+        private final long started;
+        private long rows;
+        private long imported;
+        private long duplicates;
+        private long failed;
+        
+        private Totals(long started) {
+            this.started = started;
+        }
+        
+        private CatalogImportResponse report(String type) {
+            return CatalogImportResponse.builder()
+                    .type(type)
+                    .rows(rows)
+                    .imported(imported)
+                    .duplicates(duplicates)
+                    .failed(failed)
+                    .elapsedMillis(System.currentTimeMillis() - started)
+                    .build();
+        }
+    }
+}
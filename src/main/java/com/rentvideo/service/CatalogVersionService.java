@@ -0,0 +1,104 @@
+package com.rentvideo.service;
+
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.exception.ResourceNotFoundException;
+import com.rentvideo.model.CatalogVersion;
+import com.rentvideo.repository.CatalogVersionRepository;
+import com.rentvideo.repository.VideoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Validators for conditional GETs on the catalog, read from the database so
+ * that every instance behind the load balancer hands out the same ones.
+ *
+ * A video's version is its updated_at, which entity saves and the bulk
+ * copy-count updates both set from the JVM clock. The catalog's is the
+ * catalog_version row: every transaction that publishes a VideoChangedEvent
+ * increments it once, just before it commits, so the row lock is only held
+ * for the commit itself. Increments are therefore ordered by commit, and a
+ * transaction that started early but commits late still moves the version
+ * past anything a client has seen. The row's updated_at is Last-Modified,
+ * which clients only fall back on without an ETag. Both updated_at columns
+ * are local time, taken to be in this JVM's time zone.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogVersionService {
+    
+    private final VideoRepository videoRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    
+    /**
+     * A strong ETag and its Last-Modified, -1 when there is nothing to date.
+     * updatedAt is the stamp they were derived from.
+     */
+    public record Version(String eTag, long lastModified, LocalDateTime updatedAt) {
+    }
+    
+    public Version videoVersion(Long videoId) {
+        LocalDateTime updatedAt = videoRepository.findUpdatedAtById(videoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Video not found with id: " + videoId));
+        return new Version("\"v" + videoId + "-" + stamp(updatedAt) + "\"", lastModified(updatedAt), updatedAt);
+    }
+    
+    /**
+     * Version of a catalog listing; the variant (query string) keeps
+     * different filters of the same catalog apart. The stamp of the last
+     * increment tells versions of a recreated database apart.
+     */
+    public Version catalogVersion(String variant) {
+        CatalogVersion current = catalogVersionRepository.findById(CatalogVersion.ID)
+                .orElseThrow(() -> new IllegalStateException("catalog_version row is missing"));
+        String suffix = variant == null || variant.isEmpty() ? "" : "-" + Integer.toHexString(variant.hashCode());
+        return new Version("\"c" + Long.toString(current.getVersion(), 36) + "-" + stamp(current.getUpdatedAt())
+                + suffix + "\"", lastModified(current.getUpdatedAt()), current.getUpdatedAt());
+    }
+    
+    /**
+     * Runs synchronously where the event is published, so the increment
+     * joins the transaction that changed the catalog
+     */
+    @EventListener
+    public void onVideoChanged(VideoChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catalogVersionRepository.increment();
+            return;
+        }
+        boolean registered = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(IncrementBeforeCommit.class::isInstance);
+        if (!registered) {
+            TransactionSynchronizationManager.registerSynchronization(new IncrementBeforeCommit());
+        }
+    }
+    
+    /**
+     * One per transaction, whatever number of videos it changes
+     */
+    private final class IncrementBeforeCommit implements TransactionSynchronization {
+        
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            catalogVersionRepository.increment();
+        }
+    }
+    
+    private static String stamp(LocalDateTime updatedAt) {
+        if (updatedAt == null) {
+            return "0";
+        }
+        return Long.toString(updatedAt.toEpochSecond(ZoneOffset.UTC), 36)
+                + "." + Integer.toString(updatedAt.getNano(), 36);
+    }
+    
+    private static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
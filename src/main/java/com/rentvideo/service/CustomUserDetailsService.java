@@ -3,6 +3,7 @@ package com.rentvideo.service;
 import com.rentvideo.model.User;
 import com.rentvideo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,30 +13,142 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
     
+    private static final int GENERATION_STRIPES = 64;
+    
     private final UserRepository userRepository;
     
+    @Value("${auth.user-cache.ttl:60000}")
+    private long cacheTtl;
+    
+    @Value("${auth.user-cache.max-size:10000}")
+    private int cacheMaxSize;
+    
+    /**
+     * Near cache of the fields needed to rebuild UserDetails, so the JWT filter
+     * doesn't hit the database on every request. Entries expire after cacheTtl
+     * and are evicted by UserService whenever a user changes.
+     */
+    private final ConcurrentMap<String, CachedUser> cache = new ConcurrentHashMap<>();
+    
+    /**
+     * Eviction generations, one per stripe of usernames. A load that started
+     * before an evict may read the old row and finish after the evict's
+     * removals; it only keeps its entry if the generation of its username
+     * did not move in the meantime. Striping keeps this bounded; an evict
+     * for another username of the same stripe just costs a reload.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (cacheTtl <= 0 || cacheMaxSize <= 0) {
+            return toUserDetails(loadUser(username));
+        }
+        
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(username);
+        if (cached == null || cached.expiresAtMillis() <= now) {
+            int stripe = stripe(username);
+            long generation = generations.get(stripe);
+            cached = loadUser(username).withExpiry(now + cacheTtl);
+            if (generations.get(stripe) == generation) {
+                makeRoom(now);
+                cache.put(username, cached);
+                // An evict between the check and the put may have done its removal before the put
+                if (generations.get(stripe) != generation) {
+                    cache.remove(username, cached);
+                }
+            }
+        }
+        return toUserDetails(cached);
+    }
+    
+    /**
+     * Drop a user from the cache now and again once the current transaction
+     * commits. Each drop moves the username's generation first, so a load
+     * that read the old state can't put it back.
+     */
+    public void evict(String username) {
+        invalidate(username);
+        TransactionCallbacks.afterCommit(() -> invalidate(username));
+    }
+    
+    private void invalidate(String username) {
+        generations.incrementAndGet(stripe(username));
+        cache.remove(username);
+    }
+    
+    private static int stripe(String username) {
+        int hash = username.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+    
+    private CachedUser loadUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
         
-        return new org.springframework.security.core.userdetails.User(
+        return new CachedUser(
                 user.getUsername(),
                 user.getPassword(),
                 user.getActive(),
+                getAuthorities(user),
+                0L
+        );
+    }
+    
+    /**
+     * A fresh UserDetails per call: Spring Security erases the credentials of
+     * the returned instance after login, which must not touch the cached copy.
+     */
+    private UserDetails toUserDetails(CachedUser user) {
+        return new org.springframework.security.core.userdetails.User(
+                user.username(),
+                user.password(),
+                user.active(),
                 true,
                 true,
                 true,
-                getAuthorities(user)
+                user.authorities()
         );
     }
     
+    private void makeRoom(long now) {
+        if (cache.size() < cacheMaxSize) {
+            return;
+        }
+        cache.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        
+        int target = cacheMaxSize - Math.max(1, cacheMaxSize / 10);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
     private Collection<? extends GrantedAuthority> getAuthorities(User user) {
         return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
     }
+    
+    private record CachedUser(
+            String username,
+            String password,
+            boolean active,
+            Collection<? extends GrantedAuthority> authorities,
+            long expiresAtMillis
+    ) {
+        
+        CachedUser withExpiry(long expiresAtMillis) {
+            return new CachedUser(username, password, active, authorities, expiresAtMillis);
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package com.rentvideo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rentvideo.dto.response.RentalResponse;
+import com.rentvideo.dto.response.UserResponse;
+import com.rentvideo.dto.response.VideoResponse;
+import com.rentvideo.journal.InventoryEvent;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.RentalRepository;
+import com.rentvideo.repository.UserRepository;
+import com.rentvideo.repository.VideoRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Full-table exports as NDJSON, one JSON object per line.
+ *
+ * Rows are read through a forward-only cursor and written to the output
+ * stream as they arrive. Every chunk the output is flushed and the
+ * persistence context cleared, so memory use doesn't grow with the table.
+ * The transaction (and its connection) stays open until the export is done.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+    
+    public static final String NDJSON = "application/x-ndjson";
+    
+    // Same as the fetch size on the streaming queries
+    private static final int CHUNK_SIZE = 500;
+    
+    private final UserRepository userRepository;
+    private final VideoRepository videoRepository;
+    private final RentalRepository rentalRepository;
+    private final UserService userService;
+    private final VideoService videoService;
+    private final InventoryJournalService inventoryJournal;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        try (Stream<User> users = userRepository.streamAll()) {
+            return write(out, "users", users.map(userService::mapToUserResponse), UserResponse.class);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public long exportVideos(OutputStream out) throws IOException {
+        try (Stream<Video> videos = videoRepository.streamAll()) {
+            return write(out, "videos", videos.map(videoService::mapToVideoResponse), VideoResponse.class);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public long exportRentals(OutputStream out) throws IOException {
+        try (Stream<RentalResponse> rentals = rentalRepository.streamAllRentalResponses()) {
+            return write(out, "rentals", rentals, RentalResponse.class);
+        }
+    }
+    
+    /**
+     * Inventory journal events from the given sequence on, replayed from the
+     * segment files without touching the database
+     */
+    public long exportJournal(OutputStream out, long fromSequence) throws IOException {
+        long started = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(InventoryEvent.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        
+        AtomicLong count = new AtomicLong();
+        try (JsonGenerator generator = lineGenerator(out)) {
+            inventoryJournal.replay(fromSequence, event -> {
+                try {
+                    writer.writeValue(generator, event);
+                    generator.writeRaw('\n');
+                    if (count.incrementAndGet() % CHUNK_SIZE == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        log.info("Exported {} journal events in {} ms", count.get(), System.currentTimeMillis() - started);
+        return count.get();
+    }
+    
+    private <T> long write(OutputStream out, String name, Stream<T> rows, Class<T> type) throws IOException {
+        long started = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(type)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        
+        long count = 0;
+        try (JsonGenerator generator = lineGenerator(out)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % CHUNK_SIZE == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        
+        log.info("Exported {} {} in {} ms", count, name, System.currentTimeMillis() - started);
+        return count;
+    }
+    
+    private JsonGenerator lineGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // Lines are ended explicitly, no separator before the next value
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+}
@@ -0,0 +1,255 @@
+package com.rentvideo.service;
+
+import com.rentvideo.journal.InventoryEvent;
+import com.rentvideo.journal.InventoryJournal;
+import com.rentvideo.model.InventoryOutboxEntry;
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.InventoryOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Records committed rentals, returns and copy-count changes in the
+ * {@link InventoryJournal}, so audits and rebuilds of derived state can
+ * stream the history instead of scanning the rentals and videos tables.
+ *
+ * Events go through an outbox table: each is inserted in the transaction
+ * that made the change, so the journal never holds a change the database
+ * rolled back and never misses one it committed. Once the transaction
+ * commits, a background thread drains the outbox into the journal; the
+ * committing thread still holds its connection at that point, and must not
+ * wait for a second one. A scheduled drain picks up whatever a failed append
+ * or a crash left behind. A failed append is logged and counted, not thrown:
+ * the change is committed, and its event stays in the outbox until an append
+ * succeeds. Delivery is at least once; a crash between an append and the
+ * delete of its row appends that event again on the next drain.
+ *
+ * Every instance drains the shared outbox into its own journal, so with
+ * several instances each journal holds only part of the history.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryJournalService {
+    
+    // Outbox rows appended per query
+    static final int DRAIN_BATCH = 500;
+    
+    @Value("${journal.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${journal.directory:data/journal}")
+    private String directory;
+    
+    @Value("${journal.segment-size:67108864}")
+    private int segmentSize;
+    
+    @Value("${journal.compaction.retained-segments:8}")
+    private int retainedSegments;
+    
+    private final InventoryOutboxRepository outboxRepository;
+    
+    private InventoryJournal journal;
+    
+    private final AtomicLong failures = new AtomicLong();
+    
+    private ExecutorService drainExecutor;
+    
+    // At most one drain queued behind the running one, however many commits ask for it
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    
+    // Only one drain at a time; a drain asked for while one runs is run by that thread
+    private final Lock drainLock = new ReentrantLock();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    
+    @PostConstruct
+    void init() throws IOException {
+        if (enabled) {
+            journal = new InventoryJournal(Path.of(directory), segmentSize);
+            drainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-outbox");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    public void recordRental(Rental rental) {
+        append(InventoryEvent.rented(rental.getVideo().getId(), rental.getId(), rental.getUser().getId(),
+                toCents(rental.getRentalPrice())));
+    }
+    
+    public void recordReturn(Rental rental) {
+        append(InventoryEvent.returned(rental.getVideo().getId(), rental.getId(), rental.getUser().getId(),
+                toCents(rental.getLateFee())));
+    }
+    
+    public void recordCopies(Video video) {
+        append(InventoryEvent.copiesChanged(video.getId(), video.getTotalCopies()));
+    }
+    
+    public void recordDeleted(Long videoId) {
+        append(InventoryEvent.videoDeleted(videoId));
+    }
+    
+    /**
+     * Pass every journaled event from the given sequence on to the consumer, in order
+     *
+     * @return sequence of the last event passed
+     * @throws IllegalStateException if the journal is disabled
+     */
+    public long replay(long fromSequence, Consumer<InventoryEvent> consumer) throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("Inventory journal is disabled");
+        }
+        return journal.replay(fromSequence, consumer);
+    }
+    
+    /**
+     * Append every committed outbox entry to the journal, oldest first, and
+     * delete the appended ones. Stops at the first failed append, leaving it
+     * and the entries after it for the next drain.
+     */
+    @Scheduled(fixedDelayString = "${journal.outbox.drain-interval:5000}")
+    public void drain() {
+        if (journal == null) {
+            return;
+        }
+        drainRequested.set(true);
+        while (drainRequested.get() && drainLock.tryLock()) {
+            try {
+                drainRequested.set(false);
+                drainOutbox();
+            } catch (RuntimeException e) {
+                log.warn("Could not drain the inventory outbox", e);
+                return;
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Group fsync: one force covers every event appended since the last one
+     */
+    @Scheduled(fixedDelayString = "${journal.sync-interval:50}")
+    public void sync() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${journal.compaction.interval:3600000}",
+               initialDelayString = "${journal.compaction.interval:3600000}")
+    public void compact() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.compact(retainedSegments);
+        } catch (IOException e) {
+            log.warn("Inventory journal compaction failed", e);
+        }
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        if (drainExecutor != null) {
+            drainExecutor.shutdownNow();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return journal != null;
+    }
+    
+    /**
+     * The journal, or null when disabled
+     */
+    public InventoryJournal getJournal() {
+        return journal;
+    }
+    
+    public long getFailureCount() {
+        return failures.get();
+    }
+    
+    /**
+     * Entries committed to the outbox and not yet in the journal
+     */
+    public long getPendingCount() {
+        return outboxRepository.count();
+    }
+    
+    private void append(InventoryEvent event) {
+        if (journal == null) {
+            return;
+        }
+        outboxRepository.save(new InventoryOutboxEntry(event));
+        TransactionCallbacks.afterCommit(this::requestDrain);
+    }
+    
+    private void requestDrain() {
+        if (drainQueued.compareAndSet(false, true)) {
+            try {
+                drainExecutor.execute(() -> {
+                    drainQueued.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the next start drains what is left
+                drainQueued.set(false);
+            }
+        }
+    }
+    
+    private void drainOutbox() {
+        List<InventoryOutboxEntry> batch;
+        do {
+            batch = outboxRepository.findByOrderByIdAsc(PageRequest.of(0, DRAIN_BATCH));
+            List<Long> appended = new ArrayList<>(batch.size());
+            for (InventoryOutboxEntry entry : batch) {
+                try {
+                    journal.append(entry.toEvent());
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.warn("Could not journal {} event for video {}, keeping it in the outbox",
+                            entry.getEventType(), entry.getVideoId(), e);
+                    outboxRepository.deleteAllByIdInBatch(appended);
+                    return;
+                }
+                appended.add(entry.getId());
+            }
+            outboxRepository.deleteAllByIdInBatch(appended);
+        } while (batch.size() == DRAIN_BATCH);
+    }
+    
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,150 @@
+package com.rentvideo.service;
+
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.exception.ResourceNotFoundException;
+import com.rentvideo.exception.VideoNotAvailableException;
+import com.rentvideo.repository.VideoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps an in-memory counter of available copies per video in front of the
+ * videos table. The counter is only an admission gate: a reservation first
+ * takes a copy from the counter without locking, then persists it with a
+ * conditional "decrement where available_copies > 0" update, which stays the
+ * source of truth. Once a title is sold out, further requests are rejected
+ * after a plain read instead of queueing on the row lock.
+ *
+ * The counter can drift either way: copies taken by another instance make it
+ * too high, which the conditional update catches, and copies returned by
+ * another instance (or committed while it was being seeded) make it too low.
+ * A counter that says no is therefore reseeded before the request is refused.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryService {
+    
+    private final VideoRepository videoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final ConcurrentMap<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+    
+    /**
+     * Reserve one copy of a video. Must be called inside the rental transaction;
+     * the counter is given back if that transaction rolls back.
+     */
+    public void reserveCopy(Long videoId) {
+        reserveCopies(videoId, 1);
+    }
+    
+    /**
+     * Reserve several copies of a video at once, all or nothing
+     */
+    public void reserveCopies(Long videoId, int count) {
+        AtomicInteger counter = reserveFromCounter(videoId, count);
+        
+        if (videoRepository.decrementAvailableCopies(videoId, count, LocalDateTime.now()) == 0) {
+            // The database disagrees with the counter, drop it so it is reseeded
+            counters.remove(videoId, counter);
+            log.debug("Inventory counter for video {} was stale, reseeding", videoId);
+            throw new VideoNotAvailableException("Video is not available for rental");
+        }
+        
+        TransactionCallbacks.afterRollback(() -> counter.addAndGet(count));
+        eventPublisher.publishEvent(VideoChangedEvent.copiesChanged(videoId));
+    }
+    
+    /**
+     * Release one copy of a video. The counter is only bumped once the
+     * transaction commits so that it never admits more rentals than the table allows.
+     */
+    public void releaseCopy(Long videoId) {
+        if (videoRepository.incrementAvailableCopies(videoId, 1, LocalDateTime.now()) == 0) {
+            log.warn("Video {} already has all copies available, release ignored", videoId);
+            return;
+        }
+        
+        AtomicInteger counter = counters.get(videoId);
+        if (counter != null) {
+            TransactionCallbacks.afterCommit(counter::incrementAndGet);
+        } else {
+            // A counter seeded before this commits would miss the copy, so drop whatever is there by then
+            TransactionCallbacks.afterCommit(() -> counters.remove(videoId));
+        }
+        eventPublisher.publishEvent(VideoChangedEvent.copiesChanged(videoId));
+    }
+    
+    /**
+     * Release several copies of a video at once. The update caps the count at
+     * totalCopies, so the counter is reseeded rather than adjusted.
+     */
+    public void releaseCopies(Long videoId, int count) {
+        if (videoRepository.incrementAvailableCopies(videoId, count, LocalDateTime.now()) == 0) {
+            log.warn("Video {} already has all copies available, release ignored", videoId);
+            return;
+        }
+        
+        evict(videoId);
+        eventPublisher.publishEvent(VideoChangedEvent.copiesChanged(videoId));
+    }
+    
+    /**
+     * Forget the counter of a video whose copy counts were changed or which was
+     * deleted. It will be reseeded from the database on the next reservation.
+     */
+    public void evict(Long videoId) {
+        counters.remove(videoId);
+        TransactionCallbacks.afterCommit(() -> counters.remove(videoId));
+    }
+    
+    /**
+     * Current value of the in-memory counter, or -1 if the video is not cached.
+     */
+    public int cachedAvailableCopies(Long videoId) {
+        AtomicInteger counter = counters.get(videoId);
+        return counter != null ? counter.get() : -1;
+    }
+    
+    /**
+     * Take copies from the counter, reseeding it from the database once if it
+     * has too few, and return the counter they were taken from
+     */
+    private AtomicInteger reserveFromCounter(Long videoId, int count) {
+        AtomicInteger counter = counterFor(videoId);
+        if (tryDecrement(counter, count)) {
+            return counter;
+        }
+        
+        counters.remove(videoId, counter);
+        counter = counterFor(videoId);
+        if (!tryDecrement(counter, count)) {
+            throw new VideoNotAvailableException("Video is not available for rental");
+        }
+        return counter;
+    }
+    
+    private AtomicInteger counterFor(Long videoId) {
+        return counters.computeIfAbsent(videoId, id -> new AtomicInteger(
+                videoRepository.findAvailableCopiesById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Video not found with id: " + id))));
+    }
+    
+    private static boolean tryDecrement(AtomicInteger counter, int count) {
+        int current;
+        do {
+            current = counter.get();
+            if (current < count) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - count));
+        return true;
+    }
+}
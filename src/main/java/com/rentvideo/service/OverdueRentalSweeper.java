@@ -0,0 +1,130 @@
+package com.rentvideo.service;
+
+import com.rentvideo.model.Rental;
+import com.rentvideo.repository.RentalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves ACTIVE rentals past their due date to OVERDUE.
+ *
+ * The watermark is the latest due date already swept, so each run only looks
+ * at rentals whose due date falls between the watermark and yesterday. Ids
+ * are read in bounded chunks from the (status, due_date) index and flipped
+ * with one UPDATE per chunk, each chunk in its own short transaction. The
+ * watermark only advances once a whole run succeeds; rows already flipped
+ * drop out of the status filter, so a retried run doesn't touch them again.
+ *
+ * The watermark is kept in memory. After a restart the first run seeds it
+ * from the earliest ACTIVE due date, which is one index lookup.
+ */
+@Service
+@Slf4j
+public class OverdueRentalSweeper {
+    
+    private final RentalRepository rentalRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${rentals.overdue-sweep.chunk-size:500}")
+    private int chunkSize = 500;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile LocalDate watermark;
+    
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalRowsProcessed = new AtomicLong();
+    private volatile long lastRowsProcessed;
+    private volatile long lastRunMillis;
+    
+    public OverdueRentalSweeper(RentalRepository rentalRepository, PlatformTransactionManager transactionManager) {
+        this.rentalRepository = rentalRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Scheduled(fixedDelayString = "${rentals.overdue-sweep.interval:3600000}",
+               initialDelayString = "${rentals.overdue-sweep.initial-delay:60000}")
+    public void run() {
+        sweep(LocalDate.now());
+    }
+    
+    /**
+     * Mark every ACTIVE rental due before today as OVERDUE
+     *
+     * @return number of rentals marked overdue
+     */
+    public int sweep(LocalDate today) {
+        // A lock rather than synchronized: the sweep does JDBC and must not pin a virtual thread
+        lock.lock();
+        try {
+            return doSweep(today);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int doSweep(LocalDate today) {
+        long start = System.nanoTime();
+        LocalDate after = watermark != null ? watermark : seedWatermark(today);
+        
+        int processed = 0;
+        if (after.isBefore(today.minusDays(1))) {
+            List<Long> ids;
+            do {
+                ids = rentalRepository.findIdsByStatusAndDueDateBetween(
+                        Rental.RentalStatus.ACTIVE, after, today, PageRequest.of(0, chunkSize));
+                if (!ids.isEmpty()) {
+                    List<Long> chunk = ids;
+                    processed += transactionTemplate.execute(status -> rentalRepository.updateStatus(
+                            chunk, Rental.RentalStatus.ACTIVE, Rental.RentalStatus.OVERDUE));
+                }
+            } while (ids.size() == chunkSize);
+        }
+        watermark = today.minusDays(1);
+        
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        runs.incrementAndGet();
+        totalRowsProcessed.addAndGet(processed);
+        lastRowsProcessed = processed;
+        lastRunMillis = elapsedMillis;
+        if (processed > 0) {
+            log.info("Marked {} rentals overdue in {} ms (due before {})", processed, elapsedMillis, today);
+        }
+        return processed;
+    }
+    
+    private LocalDate seedWatermark(LocalDate today) {
+        return rentalRepository.findEarliestDueDateByStatus(Rental.RentalStatus.ACTIVE)
+                .map(earliest -> earliest.minusDays(1))
+                .orElse(today.minusDays(1));
+    }
+    
+    public LocalDate getWatermark() {
+        return watermark;
+    }
+    
+    public long getRuns() {
+        return runs.get();
+    }
+    
+    public long getTotalRowsProcessed() {
+        return totalRowsProcessed.get();
+    }
+    
+    public long getLastRowsProcessed() {
+        return lastRowsProcessed;
+    }
+    
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+}
@@ -1,14 +1,18 @@
 package com.rentvideo.service;
 
+import com.rentvideo.dto.request.BatchRentalRequest;
+import com.rentvideo.dto.request.BulkReturnRequest;
 import com.rentvideo.dto.request.RentalRequest;
+import com.rentvideo.dto.response.BulkReturnResponse;
 import com.rentvideo.dto.response.RentalResponse;
+import com.rentvideo.dto.response.ReturnResultResponse;
 import com.rentvideo.exception.BadRequestException;
 import com.rentvideo.exception.ResourceNotFoundException;
-import com.rentvideo.exception.VideoNotAvailableException;
 import com.rentvideo.model.Rental;
 import com.rentvideo.model.User;
 import com.rentvideo.model.Video;
 import com.rentvideo.repository.RentalRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,7 +20,14 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,7 +37,11 @@ public class RentalService {
     private final RentalRepository rentalRepository;
     private final VideoService videoService;
     private final UserService userService;
+    private final InventoryService inventoryService;
+    private final RevenueRollupService revenueRollupService;
+    private final InventoryJournalService inventoryJournal;
     
+    @Timed("rentals.rent")
     @Transactional
     public RentalResponse rentVideo(RentalRequest request) {
         String username = userService.getCurrentUsername();
@@ -34,30 +49,48 @@ public class RentalService {
         
         Video video = videoService.getVideoEntityById(request.getVideoId());
         
-        if (!video.getAvailable() || video.getAvailableCopies() <= 0) {
-            throw new VideoNotAvailableException("Video is not available for rental");
-        }
+        // Reserve a copy (conditional update, rolled back with the rental)
+        inventoryService.reserveCopy(video.getId());
         
-        // Decrease available copies
-        video.decreaseAvailableCopies();
+        Rental savedRental = rentalRepository.save(newRental(user, video, request.getRentalDays()));
+        revenueRollupService.recordRental(savedRental);
+        inventoryJournal.recordRental(savedRental);
+        return mapToRentalResponse(savedRental);
+    }
+    
+    /**
+     * Rent several videos for the current user in one transaction, all or nothing.
+     * Copies are reserved once per distinct video and the rentals are inserted
+     * as one JDBC batch.
+     */
+    @Timed("rentals.rent.batch")
+    @Transactional
+    public List<RentalResponse> rentVideos(BatchRentalRequest request) {
+        String username = userService.getCurrentUsername();
+        User user = userService.getUserByUsername(username);
         
-        // Create rental
-        Rental rental = new Rental();
-        rental.setUser(user);
-        rental.setVideo(video);
-        rental.setRentalDate(LocalDate.now());
-        rental.setDueDate(LocalDate.now().plusDays(request.getRentalDays()));
+        List<RentalRequest> items = request.getRentals();
+        Map<Long, Integer> copiesPerVideo = new TreeMap<>();
+        items.forEach(item -> copiesPerVideo.merge(item.getVideoId(), 1, Integer::sum));
         
-        BigDecimal rentalPrice = video.getRentalPricePerDay()
-                .multiply(BigDecimal.valueOf(request.getRentalDays()));
-        rental.setRentalPrice(rentalPrice);
-        rental.setTotalAmount(rentalPrice);
-        rental.setStatus(Rental.RentalStatus.ACTIVE);
+        Map<Long, Video> videos = videoService.getVideoEntitiesByIds(copiesPerVideo.keySet());
         
-        Rental savedRental = rentalRepository.save(rental);
-        return mapToRentalResponse(savedRental);
+        // Ascending video id, so concurrent batches lock rows in the same order
+        copiesPerVideo.forEach(inventoryService::reserveCopies);
+        
+        List<Rental> rentals = items.stream()
+                .map(item -> newRental(user, videos.get(item.getVideoId()), item.getRentalDays()))
+                .collect(Collectors.toList());
+        
+        List<Rental> savedRentals = rentalRepository.saveAll(rentals);
+        savedRentals.forEach(revenueRollupService::recordRental);
+        savedRentals.forEach(inventoryJournal::recordRental);
+        return savedRentals.stream()
+                .map(this::mapToRentalResponse)
+                .collect(Collectors.toList());
     }
     
+    @Timed("rentals.return")
     @Transactional
     public RentalResponse returnVideo(Long rentalId) {
         String username = userService.getCurrentUsername();
@@ -76,50 +109,120 @@ public class RentalService {
             throw new BadRequestException("Video has already been returned");
         }
         
+        applyReturn(rental, LocalDate.now());
+        revenueRollupService.recordReturn(rental);
+        inventoryJournal.recordReturn(rental);
+        
+        // Release the copy
+        inventoryService.releaseCopy(rental.getVideo().getId());
+        
+        Rental updatedRental = rentalRepository.save(rental);
+        return mapToRentalResponse(updatedRental);
+    }
+    
+    /**
+     * Return many rentals at once (drop-box processing). Rentals are loaded in
+     * one query, late fees computed in one pass, copies released with one
+     * update per video and the rental updates flushed as a JDBC batch.
+     * Each rental is reported individually; one bad id doesn't fail the rest.
+     */
+    @Timed("rentals.return.bulk")
+    @Transactional
+    public BulkReturnResponse returnVideos(BulkReturnRequest request) {
+        Map<Long, Rental> rentals = rentalRepository.findAllWithVideoAndUserByIdIn(request.getRentalIds()).stream()
+                .collect(Collectors.toMap(Rental::getId, Function.identity()));
+        
         LocalDate returnDate = LocalDate.now();
-        rental.setReturnDate(returnDate);
-        rental.setStatus(Rental.RentalStatus.RETURNED);
+        Map<Long, Integer> copiesPerVideo = new TreeMap<>();
+        List<ReturnResultResponse> results = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
         
-        // Calculate late fee if overdue
-        if (returnDate.isAfter(rental.getDueDate())) {
-            long daysLate = ChronoUnit.DAYS.between(rental.getDueDate(), returnDate);
-            BigDecimal lateFeePerDay = rental.getVideo().getRentalPricePerDay()
-                    .multiply(BigDecimal.valueOf(0.5)); // 50% of daily rate as late fee
-            BigDecimal lateFee = lateFeePerDay.multiply(BigDecimal.valueOf(daysLate));
-            rental.setLateFee(lateFee);
-            rental.setTotalAmount(rental.getRentalPrice().add(lateFee));
+        for (Long rentalId : request.getRentalIds()) {
+            Rental rental = rentals.get(rentalId);
+            if (!seen.add(rentalId)) {
+                results.add(ReturnResultResponse.failure(rentalId, "Duplicate rental id in request"));
+            } else if (rental == null) {
+                results.add(ReturnResultResponse.failure(rentalId, "Rental not found with id: " + rentalId));
+            } else if (rental.getStatus() == Rental.RentalStatus.RETURNED) {
+                results.add(ReturnResultResponse.failure(rentalId, "Video has already been returned"));
+            } else {
+                applyReturn(rental, returnDate);
+                revenueRollupService.recordReturn(rental);
+                inventoryJournal.recordReturn(rental);
+                copiesPerVideo.merge(rental.getVideo().getId(), 1, Integer::sum);
+                results.add(ReturnResultResponse.success(mapToRentalResponse(rental)));
+            }
         }
         
-        // Increase available copies
-        Video video = rental.getVideo();
-        video.increaseAvailableCopies();
+        copiesPerVideo.forEach(inventoryService::releaseCopies);
         
-        Rental updatedRental = rentalRepository.save(rental);
-        return mapToRentalResponse(updatedRental);
+        long returned = results.stream().filter(ReturnResultResponse::getSuccess).count();
+        return BulkReturnResponse.builder()
+                .returned((int) returned)
+                .failed(results.size() - (int) returned)
+                .results(results)
+                .build();
     }
     
     public List<RentalResponse> getAllRentals() {
-        return rentalRepository.findAll().stream()
-                .map(this::mapToRentalResponse)
-                .collect(Collectors.toList());
+        return rentalRepository.findAllRentalResponses();
     }
     
     public List<RentalResponse> getCurrentUserRentals() {
         String username = userService.getCurrentUsername();
-        User user = userService.getUserByUsername(username);
-        
-        return rentalRepository.findByUser(user).stream()
-                .map(this::mapToRentalResponse)
-                .collect(Collectors.toList());
+        return rentalRepository.findRentalResponsesByUsername(username);
     }
     
     public List<RentalResponse> getActiveRentals() {
-        return rentalRepository.findByStatus(Rental.RentalStatus.ACTIVE).stream()
-                .map(this::mapToRentalResponse)
-                .collect(Collectors.toList());
+        // Overdue rentals are still out, so they count as active
+        return rentalRepository.findRentalResponsesByStatusIn(
+                EnumSet.of(Rental.RentalStatus.ACTIVE, Rental.RentalStatus.OVERDUE));
+    }
+    
+    /**
+     * Mark a rental returned and add the late fee if it is overdue
+     */
+    private void applyReturn(Rental rental, LocalDate returnDate) {
+        rental.setReturnDate(returnDate);
+        rental.setStatus(Rental.RentalStatus.RETURNED);
+        
+        // Calculate late fee if overdue
+        if (returnDate.isAfter(rental.getDueDate())) {
+            BigDecimal lateFee = calculateLateFee(rental.getVideo().getRentalPricePerDay(),
+                    rental.getDueDate(), returnDate);
+            rental.setLateFee(lateFee);
+            rental.setTotalAmount(rental.getRentalPrice().add(lateFee));
+        }
+    }
+    
+    /**
+     * Late fee for a rental returned after its due date, zero otherwise
+     */
+    public static BigDecimal calculateLateFee(BigDecimal rentalPricePerDay, LocalDate dueDate, LocalDate returnDate) {
+        if (!returnDate.isAfter(dueDate)) {
+            return BigDecimal.ZERO;
+        }
+        long daysLate = ChronoUnit.DAYS.between(dueDate, returnDate);
+        BigDecimal lateFeePerDay = rentalPricePerDay.multiply(BigDecimal.valueOf(0.5)); // 50% of daily rate as late fee
+        return lateFeePerDay.multiply(BigDecimal.valueOf(daysLate));
+    }
+    
+    private Rental newRental(User user, Video video, int rentalDays) {
+        Rental rental = new Rental();
+        rental.setUser(user);
+        rental.setVideo(video);
+        rental.setRentalDate(LocalDate.now());
+        rental.setDueDate(LocalDate.now().plusDays(rentalDays));
+        
+        BigDecimal rentalPrice = video.getRentalPricePerDay()
+                .multiply(BigDecimal.valueOf(rentalDays));
+        rental.setRentalPrice(rentalPrice);
+        rental.setTotalAmount(rentalPrice);
+        rental.setStatus(Rental.RentalStatus.ACTIVE);
+        return rental;
     }
     
-    private RentalResponse mapToRentalResponse(Rental rental) {
+    public RentalResponse mapToRentalResponse(Rental rental) {
         return RentalResponse.builder()
                 .id(rental.getId())
                 .userId(rental.getUser().getId())
@@ -0,0 +1,397 @@
+package com.rentvideo.service;
+
+import com.rentvideo.dto.response.RevenueRollupResponse;
+import com.rentvideo.exception.ResourceNotFoundException;
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.RevenueRollup;
+import com.rentvideo.model.RevenueRollup.Dimension;
+import com.rentvideo.repository.RevenueRollupRepository;
+import com.rentvideo.repository.VideoRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Revenue rollups per video, genre and day, plus a grand total.
+ *
+ * Rentals and returns are added to in-memory counters once their transaction
+ * commits, so the rental path never waits on a shared rollup row. A scheduled
+ * flush adds the counters to the revenue_rollups table as deltas, one UPDATE
+ * (or INSERT for a new bucket) per touched bucket. Reads combine the stored
+ * row with whatever is still pending, so they are exact and cost one primary
+ * key lookup.
+ *
+ * Counters not yet flushed are lost if the process dies; {@link #rebuild()}
+ * recomputes every rollup from the rentals table.
+ */
+@Service
+@Slf4j
+public class RevenueRollupService {
+    
+    static final String ALL = "all";
+    static final String NO_GENRE = "Unspecified";
+    
+    private final RevenueRollupRepository rollupRepository;
+    private final VideoRepository videoRepository;
+    private final VideoFacetIndex facetIndex;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    
+    private final ConcurrentMap<RevenueRollup.Key, Pending> pending = new ConcurrentHashMap<>();
+    
+    // Write lock while pending counters move to the table, so reads never see them in neither place
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    public RevenueRollupService(RevenueRollupRepository rollupRepository, VideoRepository videoRepository,
+                                VideoFacetIndex facetIndex, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.videoRepository = videoRepository;
+        this.facetIndex = facetIndex;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Book a new rental once the current transaction commits
+     */
+    public void recordRental(Rental rental) {
+        Long videoId = rental.getVideo().getId();
+        LocalDate day = rental.getRentalDate();
+        long cents = toCents(rental.getRentalPrice());
+        TransactionCallbacks.afterCommit(() -> forEachBucket(videoId, day, p -> {
+            p.rentals.incrementAndGet();
+            p.rentalCents.addAndGet(cents);
+        }));
+    }
+    
+    /**
+     * Book a return and its late fee once the current transaction commits
+     */
+    public void recordReturn(Rental rental) {
+        Long videoId = rental.getVideo().getId();
+        LocalDate day = rental.getReturnDate();
+        long cents = toCents(rental.getLateFee());
+        TransactionCallbacks.afterCommit(() -> forEachBucket(videoId, day, p -> {
+            p.returns.incrementAndGet();
+            p.lateFeeCents.addAndGet(cents);
+        }));
+    }
+    
+    @Scheduled(fixedDelayString = "${analytics.rollup.flush-interval:5000}",
+               initialDelayString = "${analytics.rollup.flush-interval:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+    
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+    
+    /**
+     * Add pending counters to the rollup table
+     *
+     * @return number of buckets written
+     */
+    public int flush() {
+        lock.writeLock().lock();
+        try {
+            Map<RevenueRollup.Key, Delta> deltas = drain();
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::write));
+            } catch (RuntimeException e) {
+                // Put them back for the next attempt
+                deltas.forEach((key, delta) -> pendingFor(key).add(delta));
+                log.warn("Revenue rollup flush of {} buckets failed, will retry", deltas.size(), e);
+                return 0;
+            }
+            return deltas.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Recompute every rollup from the rental history, with one grouped query
+     * per dimension and time axis. Genres are taken from the current catalog.
+     * Counters pending at the time are discarded, as the history covers them;
+     * run it while rentals are quiet, or a rental committed during the rebuild
+     * may be counted twice.
+     *
+     * @return number of buckets written
+     */
+    public int rebuild() {
+        lock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            Integer written = transactionTemplate.execute(status -> {
+                Map<Long, String> genres = catalogGenres();
+                Map<RevenueRollup.Key, Delta> totals = new HashMap<>();
+                for (Object[] row : rollupRepository.sumRentalsByVideo()) {
+                    addAll(totals, (Long) row[0], genres, new Delta((Long) row[1], 0, toCents((BigDecimal) row[2]), 0));
+                }
+                for (Object[] row : rollupRepository.sumReturnsByVideo()) {
+                    addAll(totals, (Long) row[0], genres, new Delta(0, (Long) row[1], 0, toCents((BigDecimal) row[2])));
+                }
+                for (Object[] row : rollupRepository.sumRentalsByDay()) {
+                    merge(totals, key(Dimension.DAY, row[0].toString()),
+                            new Delta((Long) row[1], 0, toCents((BigDecimal) row[2]), 0));
+                }
+                for (Object[] row : rollupRepository.sumReturnsByDay()) {
+                    merge(totals, key(Dimension.DAY, row[0].toString()),
+                            new Delta(0, (Long) row[1], 0, toCents((BigDecimal) row[2])));
+                }
+                
+                rollupRepository.deleteAllInBatch();
+                totals.forEach(this::insert);
+                return totals.size();
+            });
+            pending.clear();
+            log.info("Rebuilt {} revenue rollups from rental history in {} ms",
+                    written, System.currentTimeMillis() - start);
+            return written;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Grand total, with utilization over every copy in the catalog
+     */
+    public RevenueRollupResponse getSummary() {
+        return withUtilization(get(Dimension.ALL, ALL), videoRepository.sumTotalCopies());
+    }
+    
+    public RevenueRollupResponse getVideo(Long videoId) {
+        int totalCopies = videoRepository.findById(videoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Video not found with id: " + videoId))
+                .getTotalCopies();
+        return withUtilization(get(Dimension.VIDEO, videoId.toString()), totalCopies);
+    }
+    
+    public RevenueRollupResponse get(Dimension dimension, String bucket) {
+        lock.readLock().lock();
+        try {
+            RevenueRollup.Key key = key(dimension, bucket);
+            Optional<RevenueRollup> stored = rollupRepository.findById(key);
+            return toResponse(key, stored.orElse(null));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<RevenueRollupResponse> getAll(Dimension dimension) {
+        lock.readLock().lock();
+        try {
+            return merged(dimension, rollupRepository.findByKeyDimensionOrderByKeyBucket(dimension), null, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<RevenueRollupResponse> getDays(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<RevenueRollup> stored = rollupRepository.findByKeyDimensionAndKeyBucketBetweenOrderByKeyBucket(
+                    Dimension.DAY, from.toString(), to.toString());
+            return merged(Dimension.DAY, stored, from.toString(), to.toString());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Stored rows plus buckets that so far exist only in memory, in bucket order
+     */
+    private List<RevenueRollupResponse> merged(Dimension dimension, List<RevenueRollup> stored,
+                                               String from, String to) {
+        Map<String, RevenueRollupResponse> byBucket = new TreeMap<>();
+        for (RevenueRollup rollup : stored) {
+            byBucket.put(rollup.getKey().getBucket(), toResponse(rollup.getKey(), rollup));
+        }
+        pending.keySet().stream()
+                .filter(key -> key.getDimension() == dimension && !byBucket.containsKey(key.getBucket()))
+                .filter(key -> from == null || (key.getBucket().compareTo(from) >= 0 && key.getBucket().compareTo(to) <= 0))
+                .forEach(key -> byBucket.put(key.getBucket(), toResponse(key, null)));
+        return new ArrayList<>(byBucket.values());
+    }
+    
+    private static RevenueRollupResponse withUtilization(RevenueRollupResponse rollup, long totalCopies) {
+        rollup.setTotalCopies(Math.toIntExact(totalCopies));
+        rollup.setUtilization(totalCopies > 0 ? (double) rollup.getCopiesOut() / totalCopies : 0.0);
+        return rollup;
+    }
+    
+    private RevenueRollupResponse toResponse(RevenueRollup.Key key, RevenueRollup stored) {
+        long rentals = stored != null ? stored.getRentals() : 0;
+        long returns = stored != null ? stored.getReturns() : 0;
+        long rentalCents = stored != null ? toCents(stored.getRentalRevenue()) : 0;
+        long lateFeeCents = stored != null ? toCents(stored.getLateFees()) : 0;
+        
+        Pending unflushed = pending.get(key);
+        if (unflushed != null) {
+            rentals += unflushed.rentals.get();
+            returns += unflushed.returns.get();
+            rentalCents += unflushed.rentalCents.get();
+            lateFeeCents += unflushed.lateFeeCents.get();
+        }
+        
+        return RevenueRollupResponse.builder()
+                .dimension(key.getDimension())
+                .bucket(key.getBucket())
+                .rentals(rentals)
+                .returns(returns)
+                .rentalRevenue(fromCents(rentalCents))
+                .lateFees(fromCents(lateFeeCents))
+                .totalRevenue(fromCents(rentalCents + lateFeeCents))
+                .copiesOut(key.getDimension() != Dimension.DAY ? rentals - returns : null)
+                .build();
+    }
+    
+    private void forEachBucket(Long videoId, LocalDate day, Consumer<Pending> update) {
+        update.accept(pendingFor(key(Dimension.ALL, ALL)));
+        update.accept(pendingFor(key(Dimension.VIDEO, videoId.toString())));
+        update.accept(pendingFor(key(Dimension.GENRE, genreOf(videoId))));
+        update.accept(pendingFor(key(Dimension.DAY, day.toString())));
+    }
+    
+    private static void addAll(Map<RevenueRollup.Key, Delta> totals, Long videoId, Map<Long, String> genres,
+                               Delta delta) {
+        merge(totals, key(Dimension.ALL, ALL), delta);
+        merge(totals, key(Dimension.VIDEO, videoId.toString()), delta);
+        merge(totals, key(Dimension.GENRE, genres.getOrDefault(videoId, NO_GENRE)), delta);
+    }
+    
+    private static void merge(Map<RevenueRollup.Key, Delta> totals, RevenueRollup.Key key, Delta delta) {
+        totals.merge(key, delta, Delta::plus);
+    }
+    
+    /**
+     * Genre of every video, as the facet index names it when it is built
+     * (it isn't yet when rebuilding at startup)
+     */
+    private Map<Long, String> catalogGenres() {
+        Map<Long, String> genres = new HashMap<>();
+        for (Object[] row : videoRepository.findAllGenres()) {
+            Long videoId = (Long) row[0];
+            String genre = facetIndex.genreOf(videoId);
+            if (genre == null && row[1] != null && !((String) row[1]).isBlank()) {
+                genre = ((String) row[1]).trim();
+            }
+            genres.put(videoId, genre != null ? genre : NO_GENRE);
+        }
+        return genres;
+    }
+    
+    private String genreOf(Long videoId) {
+        String genre = facetIndex.genreOf(videoId);
+        return genre != null ? genre : NO_GENRE;
+    }
+    
+    private Pending pendingFor(RevenueRollup.Key key) {
+        return pending.computeIfAbsent(key, k -> new Pending());
+    }
+    
+    private Map<RevenueRollup.Key, Delta> drain() {
+        Map<RevenueRollup.Key, Delta> deltas = new HashMap<>();
+        pending.forEach((key, p) -> {
+            Delta delta = p.drain();
+            if (!delta.isEmpty()) {
+                deltas.put(key, delta);
+            }
+        });
+        return deltas;
+    }
+    
+    private void write(RevenueRollup.Key key, Delta delta) {
+        int updated = rollupRepository.addDelta(key, delta.rentals(), delta.returns(),
+                fromCents(delta.rentalCents()), fromCents(delta.lateFeeCents()));
+        if (updated == 0) {
+            insert(key, delta);
+        }
+    }
+    
+    private void insert(RevenueRollup.Key key, Delta delta) {
+        RevenueRollup rollup = new RevenueRollup(key);
+        rollup.setRentals(delta.rentals());
+        rollup.setReturns(delta.returns());
+        rollup.setRentalRevenue(fromCents(delta.rentalCents()));
+        rollup.setLateFees(fromCents(delta.lateFeeCents()));
+        rollup.setUpdatedAt(LocalDateTime.now());
+        entityManager.persist(rollup);
+    }
+    
+    private static RevenueRollup.Key key(Dimension dimension, String bucket) {
+        return new RevenueRollup.Key(dimension, bucket);
+    }
+    
+    // Same rounding the database applies when storing an amount in a scale 2 column
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+    
+    private record Delta(long rentals, long returns, long rentalCents, long lateFeeCents) {
+        
+        Delta plus(Delta other) {
+            return new Delta(rentals + other.rentals, returns + other.returns,
+                    rentalCents + other.rentalCents, lateFeeCents + other.lateFeeCents);
+        }
+        
+        boolean isEmpty() {
+            return rentals == 0 && returns == 0 && rentalCents == 0 && lateFeeCents == 0;
+        }
+    }
+    
+    /**
+     * Counters not yet flushed. Each field is drained with getAndSet, so an
+     * increment racing with a flush lands in this flush or the next, never both.
+     */
+    private static final class Pending {
+        
+        private final AtomicLong rentals = new AtomicLong();
+        private final AtomicLong returns = new AtomicLong();
+        private final AtomicLong rentalCents = new AtomicLong();
+        private final AtomicLong lateFeeCents = new AtomicLong();
+        
+        private Delta drain() {
+            return new Delta(rentals.getAndSet(0), returns.getAndSet(0),
+                    rentalCents.getAndSet(0), lateFeeCents.getAndSet(0));
+        }
+        
+        private void add(Delta delta) {
+            rentals.addAndGet(delta.rentals());
+            returns.addAndGet(delta.returns());
+            rentalCents.addAndGet(delta.rentalCents());
+            lateFeeCents.addAndGet(delta.lateFeeCents());
+        }
+    }
+}
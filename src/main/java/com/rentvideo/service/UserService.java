@@ -24,6 +24,7 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
     
     @Transactional
     public UserResponse registerUser(RegisterRequest request) {
@@ -61,15 +62,17 @@ public class UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         
+        // Check before changing the entity, or the query would auto-flush it as a separate update
+        if (request.getEmail() != null && !request.getEmail().equals(user.getEmail()) && 
+            userRepository.existsByEmail(request.getEmail())) {
+            throw new BadRequestException("Email already exists");
+        }
+        
         if (request.getFullName() != null) {
             user.setFullName(request.getFullName());
         }
         
         if (request.getEmail() != null) {
-            if (!request.getEmail().equals(user.getEmail()) && 
-                userRepository.existsByEmail(request.getEmail())) {
-                throw new BadRequestException("Email already exists");
-            }
             user.setEmail(request.getEmail());
         }
         
@@ -78,6 +81,31 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        userDetailsService.evict(username);
+        return mapToUserResponse(updatedUser);
+    }
+    
+    @Transactional
+    public UserResponse updateUserStatus(Long id, boolean active) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        
+        user.setActive(active);
+        
+        User updatedUser = userRepository.save(user);
+        userDetailsService.evict(user.getUsername());
+        return mapToUserResponse(updatedUser);
+    }
+    
+    @Transactional
+    public UserResponse updateUserRole(Long id, Role role) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        
+        user.setRole(role);
+        
+        User updatedUser = userRepository.save(user);
+        userDetailsService.evict(user.getUsername());
         return mapToUserResponse(updatedUser);
     }
     
@@ -105,7 +133,7 @@ public class UserService {
         return principal.toString();
     }
     
-    private UserResponse mapToUserResponse(User user) {
+    public UserResponse mapToUserResponse(User user) {
         return UserResponse.builder()
                 .id(user.getId())
                 .username(user.getUsername())
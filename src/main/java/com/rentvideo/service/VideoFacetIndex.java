@@ -0,0 +1,299 @@
+package com.rentvideo.service;
+
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Compressed bitmaps of video ids per genre, per release year and for
+ * availability. Filters are answered with bitmap AND/OR instead of queries,
+ * and facet counts are bitmap intersection cardinalities.
+ *
+ * Genres are matched case-insensitively. Year ranges OR together the per-year
+ * bitmaps; counts are reported per decade.
+ *
+ * The index is built at startup and then follows the VideoChangedEvents of
+ * this instance only. With several instances on one database, each one's
+ * filters and counts miss the others' changes until it restarts, so run a
+ * single instance or route catalog writes and rentals to one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VideoFacetIndex {
+    
+    private final VideoRepository videoRepository;
+    
+    private static final int STRIPES = 64;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock[] availabilityLocks = IntStream.range(0, STRIPES)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(Lock[]::new);
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final RoaringBitmap available = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byGenre = new HashMap<>();
+    private final Map<String, String> genreNames = new HashMap<>();
+    private final TreeMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    
+    /**
+     * How filters on different facets are combined. Values within one facet
+     * (several genres) are always OR-ed.
+     */
+    public enum Match {
+        ALL,
+        ANY
+    }
+    
+    public record Filter(Collection<String> genres, Integer yearFrom, Integer yearTo, Boolean availableOnly, Match match) {
+        
+        public boolean isEmpty() {
+            return (genres == null || genres.isEmpty()) && yearFrom == null && yearTo == null
+                    && !Boolean.TRUE.equals(availableOnly);
+        }
+    }
+    
+    public record FacetCounts(int total, int available, Map<String, Integer> genres, Map<String, Integer> decades) {
+    }
+    
+    private record Entry(String genre, Integer releaseYear) {
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Video> videos = videoRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            available.clear();
+            byGenre.clear();
+            genreNames.clear();
+            byYear.clear();
+            entries.clear();
+            videos.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Video facet index built with {} videos, {} genres, {} years",
+                videos.size(), byGenre.size(), byYear.size());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoChanged(VideoChangedEvent event) {
+        if (event.type() == VideoChangedEvent.Type.COPIES_CHANGED) {
+            refreshAvailability(event.videoId());
+            return;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            switch (event.type()) {
+                case CREATED, UPDATED -> {
+                    remove(toId(event.videoId()));
+                    add(event.video());
+                }
+                case DELETED -> remove(toId(event.videoId()));
+                default -> {
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * A rent and a return of the last copy can commit in either order, so the
+     * availability seen inside either transaction may already be out of date.
+     * Listeners for the same video re-read the committed copy count one at a
+     * time instead; the last one to read sees every commit before it. Only
+     * videos sharing a stripe wait on each other.
+     */
+    private void refreshAvailability(Long videoId) {
+        Lock availabilityLock = availabilityLocks[(int) (videoId ^ (videoId >>> 32)) & (STRIPES - 1)];
+        availabilityLock.lock();
+        try {
+            Optional<Integer> copies = videoRepository.findAvailableCopiesById(videoId);
+            lock.writeLock().lock();
+            try {
+                int id = toId(videoId);
+                if (copies.isPresent() && all.contains(id)) {
+                    setAvailable(id, copies.get() > 0);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            availabilityLock.unlock();
+        }
+    }
+    
+    /**
+     * Ids of the videos matching the filter. An empty filter matches everything.
+     */
+    public RoaringBitmap filter(Filter filter) {
+        lock.readLock().lock();
+        try {
+            if (filter.isEmpty()) {
+                return all.clone();
+            }
+            
+            List<RoaringBitmap> clauses = new ArrayList<>();
+            if (filter.genres() != null && !filter.genres().isEmpty()) {
+                RoaringBitmap genres = new RoaringBitmap();
+                for (String genre : filter.genres()) {
+                    RoaringBitmap bitmap = byGenre.get(genreKey(genre));
+                    if (bitmap != null) {
+                        genres.or(bitmap);
+                    }
+                }
+                clauses.add(genres);
+            }
+            if (filter.yearFrom() != null || filter.yearTo() != null) {
+                int from = filter.yearFrom() != null ? filter.yearFrom() : Integer.MIN_VALUE;
+                int to = filter.yearTo() != null ? filter.yearTo() : Integer.MAX_VALUE;
+                RoaringBitmap years = from > to ? new RoaringBitmap()
+                        : RoaringBitmap.or(byYear.subMap(from, true, to, true).values().iterator());
+                clauses.add(years);
+            }
+            if (Boolean.TRUE.equals(filter.availableOnly())) {
+                clauses.add(available);
+            }
+            
+            RoaringBitmap result = clauses.get(0).clone();
+            for (int i = 1; i < clauses.size(); i++) {
+                if (filter.match() == Match.ANY) {
+                    result.or(clauses.get(i));
+                } else {
+                    result.and(clauses.get(i));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Facet counts over a set of matching ids
+     */
+    public FacetCounts count(RoaringBitmap ids) {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> genres = new TreeMap<>();
+            byGenre.forEach((key, bitmap) -> {
+                int count = RoaringBitmap.andCardinality(ids, bitmap);
+                if (count > 0) {
+                    genres.put(genreNames.get(key), count);
+                }
+            });
+            
+            Map<String, Integer> decades = new TreeMap<>();
+            byYear.forEach((year, bitmap) -> {
+                int count = RoaringBitmap.andCardinality(ids, bitmap);
+                if (count > 0) {
+                    decades.merge(Math.floorDiv(year, 10) * 10 + "s", count, Integer::sum);
+                }
+            });
+            
+            return new FacetCounts(ids.getCardinality(), RoaringBitmap.andCardinality(ids, available),
+                    genres, decades);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Display name of a video's genre, or null if it has none or isn't indexed
+     */
+    public String genreOf(Long videoId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(toId(videoId));
+            return entry != null && entry.genre() != null ? genreNames.get(entry.genre()) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void add(Video video) {
+        int id = toId(video.getId());
+        all.add(id);
+        setAvailable(id, Boolean.TRUE.equals(video.getAvailable()) && video.getAvailableCopies() > 0);
+        
+        String genre = video.getGenre() != null && !video.getGenre().isBlank() ? genreKey(video.getGenre()) : null;
+        if (genre != null) {
+            byGenre.computeIfAbsent(genre, key -> new RoaringBitmap()).add(id);
+            genreNames.putIfAbsent(genre, video.getGenre().trim());
+        }
+        if (video.getReleaseYear() != null) {
+            byYear.computeIfAbsent(video.getReleaseYear(), key -> new RoaringBitmap()).add(id);
+        }
+        entries.put(id, new Entry(genre, video.getReleaseYear()));
+    }
+    
+    private void remove(int id) {
+        Entry entry = entries.remove(id);
+        all.remove(id);
+        available.remove(id);
+        if (entry == null) {
+            return;
+        }
+        if (entry.genre() != null) {
+            removeFrom(byGenre, entry.genre(), id);
+            if (!byGenre.containsKey(entry.genre())) {
+                genreNames.remove(entry.genre());
+            }
+        }
+        if (entry.releaseYear() != null) {
+            removeFrom(byYear, entry.releaseYear(), id);
+        }
+    }
+    
+    private void setAvailable(int id, boolean isAvailable) {
+        if (isAvailable) {
+            available.add(id);
+        } else {
+            available.remove(id);
+        }
+    }
+    
+    private static <K> void removeFrom(Map<K, RoaringBitmap> index, K key, int id) {
+        RoaringBitmap bitmap = index.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+    
+    private static String genreKey(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static int toId(Long videoId) {
+        return Math.toIntExact(videoId);
+    }
+}
@@ -0,0 +1,212 @@
+package com.rentvideo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.exception.ResourceNotFoundException;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Each video's VideoResponse, already serialized to JSON, so that catalog
+ * reads copy bytes to the response instead of mapping and serializing every
+ * video on every GET. The bytes come from the application ObjectMapper and
+ * are identical to what the message converter would write.
+ *
+ * An entry is tagged with the row's updated_at and only served while the
+ * row still has it. Entity saves and the bulk copy-count updates all set it,
+ * whichever instance made them, so the check costs one narrow query per
+ * request rather than loading the rows. Lists of ids are checked and loaded
+ * QUERY_CHUNK ids at a time, and the whole catalog with a single scan, so no
+ * IN list grows with the catalog. Committed writes seen here, and rows found
+ * missing, also drop the entry, and Caffeine keeps the cache to
+ * videos.json-cache.max-size entries, favouring the most requested videos.
+ */
+@Service
+@RequiredArgsConstructor
+public class VideoJsonCache {
+    
+    private final VideoRepository videoRepository;
+    private final VideoService videoService;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * Ids per IN query, well below the parameter limits of H2 and MySQL
+     */
+    static final int QUERY_CHUNK = 500;
+    
+    @Value("${videos.json-cache.max-size:10000}")
+    private long maxSize = 10000;
+    
+    private Cache<Long, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    private record Entry(LocalDateTime updatedAt, byte[] json) {
+    }
+    
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoChanged(VideoChangedEvent event) {
+        entries.invalidate(event.videoId());
+    }
+    
+    /**
+     * JSON of one video, loading it only if the cached bytes are out of date
+     */
+    public byte[] videoJson(Long id) {
+        LocalDateTime updatedAt = videoRepository.findUpdatedAtById(id).orElse(null);
+        if (updatedAt == null) {
+            entries.invalidate(id);
+            throw new ResourceNotFoundException("Video not found with id: " + id);
+        }
+        return videoJson(id, updatedAt);
+    }
+    
+    /**
+     * JSON of one video whose updated_at the caller has just read
+     */
+    public byte[] videoJson(Long id, LocalDateTime updatedAt) {
+        byte[] json = current(id, updatedAt);
+        if (json != null) {
+            return json;
+        }
+        
+        Video video = videoRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Video not found with id: " + id));
+        return serialize(video, updatedAt);
+    }
+    
+    /**
+     * JSON of every video, in id order
+     */
+    public List<byte[]> catalogJson() {
+        Map<Long, LocalDateTime> updatedAt = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        for (Object[] row : videoRepository.findAllUpdatedAt()) {
+            updatedAt.put((Long) row[0], (LocalDateTime) row[1]);
+            ids.add((Long) row[0]);
+        }
+        return json(ids, updatedAt);
+    }
+    
+    /**
+     * JSON of each video in the order given, skipping ids that no longer
+     * exist. The out of date ones are loaded together, a chunk at a time.
+     */
+    public List<byte[]> videosJson(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, LocalDateTime> updatedAt = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            for (Object[] row : videoRepository.findUpdatedAtByIdIn(chunk)) {
+                updatedAt.put((Long) row[0], (LocalDateTime) row[1]);
+            }
+        }
+        return json(ids, updatedAt);
+    }
+    
+    private List<byte[]> json(List<Long> ids, Map<Long, LocalDateTime> updatedAt) {
+        List<Long> stale = new ArrayList<>();
+        List<byte[]> json = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            LocalDateTime version = updatedAt.get(id);
+            byte[] cached = null;
+            if (version == null) {
+                entries.invalidate(id);
+            } else {
+                cached = current(id, version);
+                if (cached == null) {
+                    stale.add(id);
+                }
+            }
+            json.add(cached);
+        }
+        
+        if (!stale.isEmpty()) {
+            Map<Long, byte[]> loaded = new HashMap<>();
+            for (List<Long> chunk : chunks(stale)) {
+                for (Video video : videoRepository.findAllById(chunk)) {
+                    loaded.put(video.getId(), serialize(video, updatedAt.get(video.getId())));
+                }
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                if (json.get(i) == null) {
+                    json.set(i, loaded.get(ids.get(i)));
+                }
+            }
+        }
+        json.removeIf(Objects::isNull);
+        return json;
+    }
+    
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += QUERY_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(from + QUERY_CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+    
+    private byte[] current(Long id, LocalDateTime updatedAt) {
+        Entry entry = entries.getIfPresent(id);
+        if (entry != null && entry.updatedAt().equals(updatedAt)) {
+            hits.increment();
+            return entry.json();
+        }
+        misses.increment();
+        return null;
+    }
+    
+    /**
+     * Tagged with the updated_at read before the row was loaded, so the bytes
+     * are never older than their tag. A slower reader may still put back an
+     * older entry; the next read sees it no longer matches and loads the row.
+     */
+    private byte[] serialize(Video video, LocalDateTime updatedAt) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(videoService.mapToVideoResponse(video));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        entries.put(video.getId(), new Entry(updatedAt, json));
+        return json;
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    public long getSize() {
+        return entries.estimatedSize();
+    }
+}
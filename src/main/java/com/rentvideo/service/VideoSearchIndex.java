@@ -0,0 +1,321 @@
+package com.rentvideo.service;
+
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over video title, director and description.
+ *
+ * Text is normalized (accents stripped, lower-cased, split on anything that is
+ * not a letter or digit). Every token goes into a sorted token dictionary, so
+ * whole-word and prefix matches cost a range lookup. Title and director
+ * tokens are also broken into trigrams, so infix matches like "ark" in
+ * "Dark Knight" cost a posting-list intersection. Descriptions are only
+ * indexed by token to keep the index size proportional to the catalog.
+ *
+ * All query terms must match (AND). Results are ranked by where and how each
+ * term matched: title before director before description, exact word before
+ * prefix before infix.
+ *
+ * Like VideoFacetIndex, the index is built at startup and then only sees the
+ * changes made through this instance.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VideoSearchIndex {
+    
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    private final VideoRepository videoRepository;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> tokens = new TreeMap<>();
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+    
+    /**
+     * Build the index from the catalog once the application (and any seeding) is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Video> videos = videoRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            tokens.clear();
+            trigrams.clear();
+            videos.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Video search index built with {} videos, {} tokens, {} trigrams",
+                videos.size(), tokens.size(), trigrams.size());
+    }
+    
+    /**
+     * Keep the index in step with committed catalog changes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoChanged(VideoChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.video());
+            case DELETED -> remove(event.videoId());
+            default -> {
+                // Copy counts are not searchable
+            }
+        }
+    }
+    
+    /**
+     * Add or replace a video in the index
+     */
+    public void index(Video video) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(video.getId());
+            add(video);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove a video from the index
+     */
+    public void remove(Long videoId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(videoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Ids of the videos matching every term of the query, best match first
+     */
+    public List<Long> search(String query) {
+        String normalized = normalize(query);
+        List<String> terms = tokenize(normalized);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> termScores = scoreTerm(term, scores == null ? null : scores.keySet());
+                if (termScores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                if (scores != null) {
+                    Map<Long, Integer> previous = scores;
+                    termScores.replaceAll((id, score) -> score + previous.get(id));
+                }
+                scores = termScores;
+            }
+            
+            Map<Long, Integer> ranked = scores;
+            ranked.replaceAll((id, score) -> score + phraseBonus(documents.get(id), normalized));
+            
+            List<Long> ids = new ArrayList<>(ranked.keySet());
+            ids.sort(Comparator.<Long>comparingInt(ranked::get).reversed()
+                    .thenComparing(id -> documents.get(id).title()));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Score every document matching one term, optionally restricted to the
+     * documents that matched the previous terms
+     */
+    private Map<Long, Integer> scoreTerm(String term, Set<Long> restrictTo) {
+        Set<Long> candidates = new HashSet<>();
+        for (Set<Long> ids : tokens.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+            candidates.addAll(ids);
+        }
+        if (term.length() >= 3) {
+            candidates.addAll(trigramCandidates(term));
+        }
+        if (restrictTo != null) {
+            candidates.retainAll(restrictTo);
+        }
+        
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Long id : candidates) {
+            Document document = documents.get(id);
+            int score = fieldScore(document.titleTokens(), term, 10, 6, 4)
+                    + fieldScore(document.directorTokens(), term, 5, 3, 2)
+                    + fieldScore(document.descriptionTokens(), term, 1, 1, 0);
+            if (score > 0) {
+                scores.put(id, score);
+            }
+        }
+        return scores;
+    }
+    
+    private Set<Long> trigramCandidates(String term) {
+        Set<Long> result = null;
+        for (String gram : trigramsOf(term)) {
+            Set<Long> posting = trigrams.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            if (result == null) {
+                result = new HashSet<>(posting);
+            } else {
+                result.retainAll(posting);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? Collections.emptySet() : result;
+    }
+    
+    private static int fieldScore(Set<String> fieldTokens, String term, int exact, int prefix, int infix) {
+        if (fieldTokens.contains(term)) {
+            return exact;
+        }
+        int best = 0;
+        for (String token : fieldTokens) {
+            if (token.startsWith(term)) {
+                return prefix;
+            }
+            if (infix > 0 && token.contains(term)) {
+                best = infix;
+            }
+        }
+        return best;
+    }
+    
+    private static int phraseBonus(Document document, String normalizedQuery) {
+        if (document.title().equals(normalizedQuery)) {
+            return 20;
+        }
+        return document.title().startsWith(normalizedQuery) ? 8 : 0;
+    }
+    
+    private void add(Video video) {
+        String title = normalize(video.getTitle());
+        Document document = new Document(
+                video.getId(),
+                title,
+                new HashSet<>(tokenize(title)),
+                new HashSet<>(tokenize(normalize(video.getDirector()))),
+                new HashSet<>(tokenize(normalize(video.getDescription())))
+        );
+        documents.put(document.id(), document);
+        
+        for (String token : document.allTokens()) {
+            tokens.computeIfAbsent(token, key -> new HashSet<>()).add(document.id());
+        }
+        for (String gram : document.trigrams()) {
+            trigrams.computeIfAbsent(gram, key -> new HashSet<>()).add(document.id());
+        }
+    }
+    
+    private void removeDocument(Long videoId) {
+        Document document = documents.remove(videoId);
+        if (document == null) {
+            return;
+        }
+        for (String token : document.allTokens()) {
+            removePosting(tokens, token, videoId);
+        }
+        for (String gram : document.trigrams()) {
+            removePosting(trigrams, gram, videoId);
+        }
+    }
+    
+    private static void removePosting(Map<String, Set<Long>> index, String key, Long videoId) {
+        Set<Long> posting = index.get(key);
+        if (posting != null && posting.remove(videoId) && posting.isEmpty()) {
+            index.remove(key);
+        }
+    }
+    
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+    
+    static List<String> tokenize(String normalized) {
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(normalized.split(" "));
+    }
+    
+    static Set<String> trigramsOf(String token) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            grams.add(token.substring(i, i + 3));
+        }
+        return grams;
+    }
+    
+    private record Document(
+            Long id,
+            String title,
+            Set<String> titleTokens,
+            Set<String> directorTokens,
+            Set<String> descriptionTokens
+    ) {
+        
+        Set<String> allTokens() {
+            Set<String> all = new HashSet<>(titleTokens);
+            all.addAll(directorTokens);
+            all.addAll(descriptionTokens);
+            return all;
+        }
+        
+        Set<String> trigrams() {
+            Set<String> grams = new HashSet<>();
+            titleTokens.forEach(token -> grams.addAll(trigramsOf(token)));
+            directorTokens.forEach(token -> grams.addAll(trigramsOf(token)));
+            return grams;
+        }
+    }
+}
@@ -2,14 +2,25 @@ package com.rentvideo.service;
 
 import com.rentvideo.dto.request.VideoRequest;
 import com.rentvideo.dto.response.VideoResponse;
+import com.rentvideo.dto.response.VideoSearchResponse;
+import com.rentvideo.event.VideoChangedEvent;
 import com.rentvideo.exception.ResourceNotFoundException;
 import com.rentvideo.model.Video;
 import com.rentvideo.repository.VideoRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,6 +28,11 @@ import java.util.stream.Collectors;
 public class VideoService {
     
     private final VideoRepository videoRepository;
+    private final InventoryService inventoryService;
+    private final VideoSearchIndex searchIndex;
+    private final VideoFacetIndex facetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryJournalService inventoryJournal;
     
     @Transactional
     public VideoResponse createVideo(VideoRequest request) {
@@ -34,6 +50,8 @@ public class VideoService {
         video.setAvailable(true);
         
         Video savedVideo = videoRepository.save(video);
+        inventoryJournal.recordCopies(savedVideo);
+        eventPublisher.publishEvent(VideoChangedEvent.created(savedVideo));
         return mapToVideoResponse(savedVideo);
     }
     
@@ -60,9 +78,24 @@ public class VideoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Video not found with id: " + id));
     }
     
+    /**
+     * Load several videos with one query, failing if any id is unknown
+     */
+    public Map<Long, Video> getVideoEntitiesByIds(Collection<Long> ids) {
+        Map<Long, Video> videos = videoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Video::getId, Function.identity()));
+        for (Long id : ids) {
+            if (!videos.containsKey(id)) {
+                throw new ResourceNotFoundException("Video not found with id: " + id);
+            }
+        }
+        return videos;
+    }
+    
     @Transactional
     public VideoResponse updateVideo(Long id, VideoRequest request) {
-        Video video = videoRepository.findById(id)
+        // Lock the row so concurrent rentals can't be lost in the copy adjustment
+        Video video = videoRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Video not found with id: " + id));
         
         video.setTitle(request.getTitle());
@@ -85,6 +118,11 @@ public class VideoService {
         video.setCoverImageUrl(request.getCoverImageUrl());
         
         Video updatedVideo = videoRepository.save(video);
+        inventoryService.evict(id);
+        if (copyDifference != 0) {
+            inventoryJournal.recordCopies(updatedVideo);
+        }
+        eventPublisher.publishEvent(VideoChangedEvent.updated(updatedVideo));
         return mapToVideoResponse(updatedVideo);
     }
     
@@ -93,21 +131,86 @@ public class VideoService {
         Video video = videoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Video not found with id: " + id));
         videoRepository.delete(video);
+        inventoryService.evict(id);
+        inventoryJournal.recordDeleted(id);
+        eventPublisher.publishEvent(VideoChangedEvent.deleted(id));
     }
     
-    public List<VideoResponse> searchVideosByTitle(String title) {
-        return videoRepository.findByTitleContainingIgnoreCase(title).stream()
+    @Timed("videos.search")
+    public List<VideoResponse> searchVideos(String query) {
+        return loadInOrder(searchIndex.search(query));
+    }
+    
+    /**
+     * Primary key lookup for the given ids only, returned in the order given
+     */
+    private List<VideoResponse> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Map<Long, Video> videos = videoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Video::getId, Function.identity()));
+        return ids.stream()
+                .map(videos::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToVideoResponse)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Combine an optional text search with facet filters. Matching ids come
+     * from the in-memory indexes; only the matches are loaded.
+     */
+    @Timed("videos.search")
+    public List<VideoResponse> findVideos(String query, VideoFacetIndex.Filter filter) {
+        return loadInOrder(findVideoIds(query, filter));
+    }
+    
+    /**
+     * Same as findVideos, plus facet counts over the matches
+     */
+    @Timed("videos.search")
+    public VideoSearchResponse searchCatalog(String query, VideoFacetIndex.Filter filter) {
+        List<Long> ids = findVideoIds(query, filter);
+        
+        RoaringBitmap matches = new RoaringBitmap();
+        ids.forEach(id -> matches.add(Math.toIntExact(id)));
+        VideoFacetIndex.FacetCounts counts = facetIndex.count(matches);
+        
+        return VideoSearchResponse.builder()
+                .videos(loadInOrder(ids))
+                .total(counts.total())
+                .available(counts.available())
+                .genres(counts.genres())
+                .decades(counts.decades())
+                .build();
+    }
+    
+    /**
+     * Ids matched by findVideos, in the same order, without loading anything
+     */
+    public List<Long> findVideoIds(String query, VideoFacetIndex.Filter filter) {
+        RoaringBitmap filtered = facetIndex.filter(filter);
+        if (query == null || query.isBlank()) {
+            List<Long> ids = new ArrayList<>(filtered.getCardinality());
+            filtered.forEach((int id) -> ids.add((long) id));
+            return ids;
+        }
+        
+        // Keep the search ranking, drop what the facets exclude
+        return searchIndex.search(query).stream()
+                .filter(id -> filtered.contains(Math.toIntExact(id)))
+                .collect(Collectors.toList());
+    }
+    
     public List<VideoResponse> getVideosByGenre(String genre) {
         return videoRepository.findByGenre(genre).stream()
                 .map(this::mapToVideoResponse)
                 .collect(Collectors.toList());
     }
     
-    private VideoResponse mapToVideoResponse(Video video) {
+    public VideoResponse mapToVideoResponse(Video video) {
         return VideoResponse.builder()
                 .id(video.getId())
                 .title(video.getTitle())
@@ -0,0 +1,55 @@
+-- Schema as spring.jpa.hibernate.ddl-auto=update created it for the first
+-- release. Databases that already have it, or any later ddl-auto schema, are
+-- baselined at this version instead of running it
+-- (spring.flyway.baseline-on-migrate). Constraint names are the ones
+-- Hibernate generated, so later migrations can refer to them either way.
+
+CREATE TABLE users (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username      VARCHAR(255) NOT NULL UNIQUE,
+    password      VARCHAR(255) NOT NULL,
+    full_name     VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    phone_number  VARCHAR(255),
+    role          VARCHAR(255) NOT NULL CHECK (role IN ('USER', 'ADMIN')),
+    active        BOOLEAN NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE videos (
+    id                    BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title                 VARCHAR(255) NOT NULL,
+    description           VARCHAR(1000),
+    director              VARCHAR(255),
+    genre                 VARCHAR(255),
+    release_year          INTEGER NOT NULL,
+    duration_minutes      INTEGER NOT NULL,
+    rental_price_per_day  NUMERIC(38, 2) NOT NULL,
+    total_copies          INTEGER NOT NULL,
+    available_copies      INTEGER NOT NULL,
+    cover_image_url       VARCHAR(255),
+    available             BOOLEAN NOT NULL,
+    created_at            TIMESTAMP(6) NOT NULL,
+    updated_at            TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE rentals (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id       BIGINT NOT NULL,
+    video_id      BIGINT NOT NULL,
+    rental_date   DATE NOT NULL,
+    due_date      DATE NOT NULL,
+    return_date   DATE,
+    rental_price  NUMERIC(38, 2) NOT NULL,
+    late_fee      NUMERIC(38, 2),
+    total_amount  NUMERIC(38, 2),
+    status        VARCHAR(255) NOT NULL CHECK (status IN ('ACTIVE', 'RETURNED', 'OVERDUE')),
+    created_at    TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE rentals ADD CONSTRAINT FKtnhd1objf2mlb6ag6k726u269 FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE rentals ADD CONSTRAINT FKaxen3bv45i2bomwl7nip5knye FOREIGN KEY (video_id) REFERENCES videos (id);
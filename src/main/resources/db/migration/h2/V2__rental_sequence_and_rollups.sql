@@ -0,0 +1,33 @@
+-- What ddl-auto=update added after the first release: the rental id
+-- sequence for batched inserts, the overdue sweep's index and the revenue
+-- rollups. A database baselined from a later ddl-auto schema already has
+-- some or all of them, so each is only created if missing.
+--
+-- rentals.id keeps its identity default from V1 where it had one; Hibernate
+-- always supplies the id from the sequence.
+
+CREATE SEQUENCE IF NOT EXISTS rentals_seq START WITH 1 INCREMENT BY 50;
+
+CREATE INDEX IF NOT EXISTS idx_rentals_status_due_date ON rentals (status, due_date);
+
+CREATE TABLE IF NOT EXISTS revenue_rollups (
+    dimension       VARCHAR(10) NOT NULL CHECK (dimension IN ('ALL', 'VIDEO', 'GENRE', 'DAY')),
+    bucket          VARCHAR(100) NOT NULL,
+    rentals         BIGINT NOT NULL,
+    returns         BIGINT NOT NULL,
+    rental_revenue  NUMERIC(19, 2) NOT NULL,
+    late_fees       NUMERIC(19, 2) NOT NULL,
+    updated_at      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (dimension, bucket)
+);
+
+-- Rentals from before the sequence have identity ids, and a sequence that
+-- ddl-auto created next to them started at 1. Hibernate's pooled optimizer
+-- hands out the block of 50 ids that ends at the value it fetches, so the
+-- next value must be at least the highest id plus 50. Never moves the
+-- sequence backwards.
+ALTER SEQUENCE rentals_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50,
+                    (SELECT base_value FROM information_schema.sequences WHERE sequence_name = 'RENTALS_SEQ'))
+    FROM rentals
+);
@@ -0,0 +1,16 @@
+-- Indexes for the repository finders that scanned their tables.
+-- rentals (status, due_date) from V2 already serves findByStatus and the
+-- overdue sweep; videos.title searches go through VideoSearchIndex.
+
+-- findByUserAndStatus and the status filter on a user's rentals. H2 keeps
+-- its own user_id index for the foreign key, which serves findByUser alone.
+CREATE INDEX idx_rentals_user_status ON rentals (user_id, status);
+
+-- findByGenre, genre filters on available videos
+CREATE INDEX idx_videos_genre_available ON videos (genre, available);
+
+-- findByAvailableTrue
+CREATE INDEX idx_videos_available ON videos (available);
+
+-- findByReleaseYear
+CREATE INDEX idx_videos_release_year ON videos (release_year);
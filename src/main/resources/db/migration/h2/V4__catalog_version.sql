@@ -0,0 +1,13 @@
+-- Version of the catalog as a whole, for the ETags of catalog listings. One
+-- row, incremented by every transaction that writes videos just before it
+-- commits. The row lock orders those increments by commit, so a client that
+-- has seen a version has seen every change committed under it.
+
+CREATE TABLE catalog_version (
+    id          INTEGER NOT NULL,
+    version     BIGINT NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO catalog_version (id, version, updated_at) VALUES (1, 1, LOCALTIMESTAMP);
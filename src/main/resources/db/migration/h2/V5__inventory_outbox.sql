@@ -0,0 +1,16 @@
+-- Inventory events waiting to be appended to the inventory journal. Each is
+-- inserted in the transaction that made the change, so it commits or rolls
+-- back with it, and deleted once it is in the journal. Rows that outlive a
+-- failed append or a crash are appended by the next drain.
+
+CREATE TABLE inventory_outbox (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    event_type    VARCHAR(20) NOT NULL,
+    event_time    BIGINT NOT NULL,
+    video_id      BIGINT NOT NULL,
+    rental_id     BIGINT NOT NULL,
+    user_id       BIGINT NOT NULL,
+    quantity      INTEGER NOT NULL,
+    amount_cents  BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
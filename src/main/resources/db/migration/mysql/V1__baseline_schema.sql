@@ -0,0 +1,57 @@
+-- Schema as spring.jpa.hibernate.ddl-auto=update created it for the first
+-- release. Databases that already have it, or any later ddl-auto schema, are
+-- baselined at this version instead of running it
+-- (spring.flyway.baseline-on-migrate). Constraint names are the ones
+-- Hibernate generated, so later migrations can refer to them either way.
+
+CREATE TABLE users (
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    username      VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    full_name     VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    phone_number  VARCHAR(255),
+    role          ENUM ('USER', 'ADMIN') NOT NULL,
+    active        BIT NOT NULL,
+    created_at    DATETIME(6) NOT NULL,
+    updated_at    DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_r43af9ap4edm43mmtq01oddj6 UNIQUE (username),
+    CONSTRAINT UK_6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE videos (
+    id                    BIGINT NOT NULL AUTO_INCREMENT,
+    title                 VARCHAR(255) NOT NULL,
+    description           VARCHAR(1000),
+    director              VARCHAR(255),
+    genre                 VARCHAR(255),
+    release_year          INTEGER NOT NULL,
+    duration_minutes      INTEGER NOT NULL,
+    rental_price_per_day  DECIMAL(38, 2) NOT NULL,
+    total_copies          INTEGER NOT NULL,
+    available_copies      INTEGER NOT NULL,
+    cover_image_url       VARCHAR(255),
+    available             BIT NOT NULL,
+    created_at            DATETIME(6) NOT NULL,
+    updated_at            DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE rentals (
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    user_id       BIGINT NOT NULL,
+    video_id      BIGINT NOT NULL,
+    rental_date   DATE NOT NULL,
+    due_date      DATE NOT NULL,
+    return_date   DATE,
+    rental_price  DECIMAL(38, 2) NOT NULL,
+    late_fee      DECIMAL(38, 2),
+    total_amount  DECIMAL(38, 2),
+    status        ENUM ('ACTIVE', 'RETURNED', 'OVERDUE') NOT NULL,
+    created_at    DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+ALTER TABLE rentals ADD CONSTRAINT FKtnhd1objf2mlb6ag6k726u269 FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE rentals ADD CONSTRAINT FKaxen3bv45i2bomwl7nip5knye FOREIGN KEY (video_id) REFERENCES videos (id);
@@ -0,0 +1,43 @@
+-- What ddl-auto=update added after the first release: the rental id
+-- sequence for batched inserts, the overdue sweep's index and the revenue
+-- rollups. A database baselined from a later ddl-auto schema already has
+-- some or all of them, so each is only created if missing.
+--
+-- rentals.id keeps its AUTO_INCREMENT from V1 where it had one; Hibernate
+-- always supplies the id from the sequence.
+
+-- MySQL has no sequences; Hibernate keeps the next value in a one-row table
+CREATE TABLE IF NOT EXISTS rentals_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO rentals_seq SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM rentals_seq);
+
+-- MySQL has no CREATE INDEX IF NOT EXISTS
+SET @create_index = IF(
+    (SELECT COUNT(*) FROM information_schema.statistics
+     WHERE table_schema = DATABASE() AND table_name = 'rentals' AND index_name = 'idx_rentals_status_due_date') = 0,
+    'CREATE INDEX idx_rentals_status_due_date ON rentals (status, due_date)',
+    'DO 0');
+PREPARE create_index FROM @create_index;
+EXECUTE create_index;
+DEALLOCATE PREPARE create_index;
+
+-- As Hibernate created it, bucket first; V3 reorders the key
+CREATE TABLE IF NOT EXISTS revenue_rollups (
+    bucket          VARCHAR(100) NOT NULL,
+    dimension       ENUM ('ALL', 'VIDEO', 'GENRE', 'DAY') NOT NULL,
+    rentals         BIGINT NOT NULL,
+    returns         BIGINT NOT NULL,
+    rental_revenue  DECIMAL(19, 2) NOT NULL,
+    late_fees       DECIMAL(19, 2) NOT NULL,
+    updated_at      DATETIME(6) NOT NULL,
+    PRIMARY KEY (bucket, dimension)
+) ENGINE = InnoDB;
+
+-- Rentals from before the sequence have AUTO_INCREMENT ids, and a sequence
+-- that ddl-auto created next to them started at 1. Hibernate's pooled
+-- optimizer hands out the block of 50 ids that ends at the value it fetches,
+-- so the next value must be at least the highest id plus 50. Never moves the
+-- sequence backwards.
+UPDATE rentals_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM rentals));
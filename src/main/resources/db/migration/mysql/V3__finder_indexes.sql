@@ -0,0 +1,22 @@
+-- Indexes for the repository finders that scanned their tables.
+-- rentals (status, due_date) from V2 already serves findByStatus and the
+-- overdue sweep; videos.title searches go through VideoSearchIndex.
+
+-- findByUser, findByUserId, findByUserAndStatus, rentals of a username.
+-- InnoDB drops the index it created for the user_id foreign key, as this
+-- one can enforce it.
+CREATE INDEX idx_rentals_user_status ON rentals (user_id, status);
+
+-- findByGenre, genre filters on available videos
+CREATE INDEX idx_videos_genre_available ON videos (genre, available);
+
+-- findByAvailableTrue
+CREATE INDEX idx_videos_available ON videos (available);
+
+-- findByReleaseYear
+CREATE INDEX idx_videos_release_year ON videos (release_year);
+
+-- Hibernate put bucket first in the rollup key, so lookups by dimension
+-- could not use it. Clustering by dimension also keeps each dimension's
+-- buckets together, in the order the analytics queries read them.
+ALTER TABLE revenue_rollups DROP PRIMARY KEY, ADD PRIMARY KEY (dimension, bucket);
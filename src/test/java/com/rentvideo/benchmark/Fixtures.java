@@ -0,0 +1,67 @@
+package com.rentvideo.benchmark;
+
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Realistically filled entities for the in-memory benchmarks
+ */
+final class Fixtures {
+    
+    private Fixtures() {
+    }
+    
+    static Video video(long id) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTitle("The Shawshank Redemption " + id);
+        video.setDescription("Two imprisoned men bond over a number of years, finding solace and eventual "
+                + "redemption through acts of common decency.");
+        video.setDirector("Frank Darabont");
+        video.setGenre("Drama");
+        video.setReleaseYear(1994);
+        video.setDurationMinutes(142);
+        video.setRentalPricePerDay(new BigDecimal("3.99"));
+        video.setTotalCopies(5);
+        video.setAvailableCopies(3);
+        video.setCoverImageUrl("https://example.com/covers/" + id + ".jpg");
+        video.setAvailable(true);
+        video.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        video.setUpdatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        return video;
+    }
+    
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu");
+        user.setFullName("Regular User");
+        user.setEmail("user" + id + "@rentvideo.com");
+        user.setRole(Role.USER);
+        user.setActive(true);
+        return user;
+    }
+    
+    static Rental rental(long id, User user, Video video) {
+        Rental rental = new Rental();
+        rental.setId(id);
+        rental.setUser(user);
+        rental.setVideo(video);
+        rental.setRentalDate(LocalDate.of(2024, 1, 15));
+        rental.setDueDate(LocalDate.of(2024, 1, 18));
+        rental.setReturnDate(LocalDate.of(2024, 1, 21));
+        rental.setRentalPrice(new BigDecimal("11.97"));
+        rental.setLateFee(new BigDecimal("5.985"));
+        rental.setTotalAmount(new BigDecimal("17.955"));
+        rental.setStatus(Rental.RentalStatus.RETURNED);
+        rental.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        return rental;
+    }
+}
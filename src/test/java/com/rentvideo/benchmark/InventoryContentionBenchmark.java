@@ -0,0 +1,104 @@
+package com.rentvideo.benchmark;
+
+import com.rentvideo.VideoRentalApplication;
+import com.rentvideo.exception.VideoNotAvailableException;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import com.rentvideo.service.InventoryService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads renting the same title: the inventory counter in front of a
+ * conditional update, against locking the row and decrementing the entity.
+ * With stock the two differ in how long each rent holds the row; sold out,
+ * the counter path refuses without taking the row lock at all.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class InventoryContentionBenchmark {
+    
+    @Param({"in-stock", "sold-out"})
+    private String stock;
+    
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+    private VideoRepository videoRepository;
+    private TransactionTemplate tx;
+    private Long videoId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(VideoRentalApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--journal.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.rentvideo=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        inventoryService = context.getBean(InventoryService.class);
+        videoRepository = context.getBean(VideoRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        
+        int copies = "in-stock".equals(stock) ? Integer.MAX_VALUE : 0;
+        Video video = new Video();
+        video.setTitle("Contended Release");
+        video.setReleaseYear(2024);
+        video.setDurationMinutes(100);
+        video.setRentalPricePerDay(new BigDecimal("1.99"));
+        video.setTotalCopies(copies);
+        video.setAvailableCopies(copies);
+        video.setAvailable(copies > 0);
+        videoId = videoRepository.save(video).getId();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public boolean counterGate() {
+        try {
+            tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId));
+            return true;
+        } catch (VideoNotAvailableException e) {
+            return false;
+        }
+    }
+    
+    @Benchmark
+    public boolean rowLock() {
+        return Boolean.TRUE.equals(tx.execute(status -> {
+            Video video = videoRepository.findByIdForUpdate(videoId).orElseThrow();
+            if (video.getAvailableCopies() <= 0) {
+                return false;
+            }
+            video.decreaseAvailableCopies();
+            return true;
+        }));
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InventoryContentionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.rentvideo.benchmark;
+
+import com.rentvideo.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request token checks done by JwtAuthenticationFilter:
+ * the original path (key decoded and token parsed three times), a cold
+ * cache (one shared parser, signature verified every time) and a warm cache.
+ * Both cached variants parse once per request and validate the claims, as
+ * the filter does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+    
+    static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970337336763979244226452948404D635166546A576E5A7134743777217A25432A";
+    
+    private JwtUtil uncached;
+    private JwtUtil cached;
+    private UserDetails userDetails;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        uncached = newJwtUtil(0);
+        cached = newJwtUtil(10_000);
+        userDetails = new User("user", "secret", Collections.emptyList());
+        token = cached.generateToken(userDetails);
+        cached.validateToken(token, userDetails);
+    }
+    
+    @Benchmark
+    public boolean originalParseThreeTimes() {
+        String username = legacyClaims(token).getSubject();
+        return username.equals(legacyClaims(token).getSubject())
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+    
+    @Benchmark
+    public boolean sharedParserColdCache() {
+        Claims claims = uncached.extractAllClaims(token);
+        return claims.getSubject() != null && uncached.validateToken(claims, userDetails);
+    }
+    
+    @Benchmark
+    public boolean sharedParserWarmCache() {
+        Claims claims = cached.extractAllClaims(token);
+        return claims.getSubject() != null && cached.validateToken(claims, userDetails);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(userDetails);
+    }
+    
+    static JwtUtil newJwtUtil(int cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+    
+    private static Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,48 @@
+package com.rentvideo.benchmark;
+
+import com.rentvideo.service.RentalService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal late-fee arithmetic from the return path, on time and late
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LateFeeBenchmark {
+    
+    @Param({"0", "3", "45"})
+    private int daysLate;
+    
+    private BigDecimal pricePerDay;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    
+    @Setup
+    public void setUp() {
+        pricePerDay = new BigDecimal("3.99");
+        dueDate = LocalDate.of(2024, 1, 18);
+        returnDate = dueDate.plusDays(daysLate);
+    }
+    
+    @Benchmark
+    public BigDecimal calculateLateFee() {
+        return RentalService.calculateLateFee(pricePerDay, dueDate, returnDate);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LateFeeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
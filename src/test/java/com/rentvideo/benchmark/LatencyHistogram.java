@@ -0,0 +1,97 @@
+package com.rentvideo.benchmark;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: each power of two of
+ * microseconds is split into 8 sub-buckets, so any recorded value is
+ * reported within 12.5% of its true value. Covers 1 µs to about 35 minutes.
+ */
+final class LatencyHistogram {
+    
+    private static final int SUB_BUCKETS = 8;
+    private static final int MAGNITUDES = 32;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(MAGNITUDES * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+    
+    void record(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        total.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+    
+    long count() {
+        return total.get();
+    }
+    
+    double meanMillis() {
+        long count = total.get();
+        return count == 0 ? 0 : sumMicros.get() / 1000.0 / count;
+    }
+    
+    double maxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+    
+    /**
+     * Upper bound of the bucket holding the given percentile, in milliseconds
+     */
+    double percentileMillis(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return maxMillis();
+    }
+    
+    /**
+     * Non-empty buckets as "<= bound ms: count" lines, coarsened to powers of two
+     */
+    String render(String indent) {
+        StringBuilder out = new StringBuilder();
+        long count = total.get();
+        for (int magnitude = 0; magnitude < MAGNITUDES; magnitude++) {
+            long inMagnitude = 0;
+            for (int sub = 0; sub < SUB_BUCKETS; sub++) {
+                inMagnitude += counts.get(magnitude * SUB_BUCKETS + sub);
+            }
+            if (inMagnitude > 0) {
+                double bound = upperBoundMicros(magnitude * SUB_BUCKETS + SUB_BUCKETS - 1) / 1000.0;
+                int bar = (int) Math.round(40.0 * inMagnitude / count);
+                out.append(String.format("%s<= %10.3f ms %8d %s%n", indent, bound, inMagnitude, "#".repeat(bar)));
+            }
+        }
+        return out.toString();
+    }
+    
+    private static int bucketOf(long micros) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude >= MAGNITUDES) {
+            return MAGNITUDES * SUB_BUCKETS - 1;
+        }
+        long base = 1L << magnitude;
+        int sub = (int) ((micros - base) * SUB_BUCKETS / base);
+        return magnitude * SUB_BUCKETS + sub;
+    }
+    
+    private static long upperBoundMicros(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        long base = 1L << magnitude;
+        return base + base * (sub + 1) / SUB_BUCKETS;
+    }
+}
@@ -0,0 +1,110 @@
+package com.rentvideo.benchmark;
+
+import com.rentvideo.VideoRentalApplication;
+import com.rentvideo.dto.request.BatchRentalRequest;
+import com.rentvideo.dto.request.RentalRequest;
+import com.rentvideo.dto.response.RentalResponse;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import com.rentvideo.service.RentalService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A kiosk checkout of N titles: N calls to rentVideo (one transaction and
+ * one insert each) against one call to rentVideos (one transaction, one
+ * JDBC insert batch). Runs the full service stack on the in-memory H2 database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalBatchBenchmark {
+    
+    @Param({"5", "10"})
+    private int titles;
+    
+    private ConfigurableApplicationContext context;
+    private RentalService rentalService;
+    private List<RentalRequest> requests;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(VideoRentalApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.rentvideo=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        rentalService = context.getBean(RentalService.class);
+        VideoRepository videoRepository = context.getBean(VideoRepository.class);
+        
+        requests = new ArrayList<>();
+        for (int i = 0; i < titles; i++) {
+            Video video = new Video();
+            video.setTitle("Benchmark " + i);
+            video.setReleaseYear(2024);
+            video.setDurationMinutes(100);
+            video.setRentalPricePerDay(new BigDecimal("1.99"));
+            video.setTotalCopies(Integer.MAX_VALUE);
+            video.setAvailableCopies(Integer.MAX_VALUE);
+            video.setAvailable(true);
+            
+            RentalRequest request = new RentalRequest();
+            request.setVideoId(videoRepository.save(video).getId());
+            request.setRentalDays(3);
+            requests.add(request);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<RentalResponse> singleRentals() {
+        authenticate();
+        List<RentalResponse> rentals = new ArrayList<>();
+        for (RentalRequest request : requests) {
+            rentals.add(rentalService.rentVideo(request));
+        }
+        return rentals;
+    }
+    
+    @Benchmark
+    public List<RentalResponse> batchRental() {
+        authenticate();
+        BatchRentalRequest batch = new BatchRentalRequest();
+        batch.setRentals(requests);
+        return rentalService.rentVideos(batch);
+    }
+    
+    private static void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "user", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RentalBatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,56 @@
+package com.rentvideo.benchmark;
+
+import com.rentvideo.dto.response.RentalResponse;
+import com.rentvideo.dto.response.VideoResponse;
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.Video;
+import com.rentvideo.service.RentalService;
+import com.rentvideo.service.VideoService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response DTO mapping done on every catalog and rental response.
+ * The services are built without collaborators; mapping doesn't use them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+    
+    private VideoService videoService;
+    private RentalService rentalService;
+    private Video video;
+    private Rental rental;
+    
+    @Setup
+    public void setUp() {
+        videoService = new VideoService(null, null, null, null, null, null);
+        rentalService = new RentalService(null, null, null, null, null, null);
+        video = Fixtures.video(1);
+        rental = Fixtures.rental(1, Fixtures.user(2), video);
+    }
+    
+    @Benchmark
+    public VideoResponse mapToVideoResponse() {
+        return videoService.mapToVideoResponse(video);
+    }
+    
+    @Benchmark
+    public RentalResponse mapToRentalResponse() {
+        return rentalService.mapToRentalResponse(rental);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResponseMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
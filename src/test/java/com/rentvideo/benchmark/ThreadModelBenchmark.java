@@ -0,0 +1,145 @@
+package com.rentvideo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentvideo.VideoRentalApplication;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the HTTP stack with platform threads (Tomcat pool of 200)
+ * against virtual threads (the "virtual" profile), on the catalog and the
+ * rent/return paths, against the in-memory H2 database.
+ *
+ * 256 client threads keep more requests in flight than the Tomcat pool has
+ * threads. Each run boots a fresh application on a random port and logs in
+ * once; rentals use a seeded title with unlimited copies so they never fail.
+ * Reports throughput and sampled latency percentiles.
+ *
+ * The virtual variant needs Java 21. The benchmark Maven profile runs only
+ * the platform variant, unless the virtual profile is active as well, which
+ * builds and runs on a Java 21 JDK: mvn -Pvirtual,benchmark verify
+ * -Djmh.include=ThreadModelBenchmark.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(256)
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+    
+    @Param({"platform", "virtual"})
+    private String threadModel;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String token;
+    private String rentalBody;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        boolean virtual = "virtual".equals(threadModel);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+        
+        context = new SpringApplicationBuilder(VideoRentalApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:rentvideo;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.profiles.active=" + (virtual ? "virtual" : "default"),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--auth.login-limit.client.capacity=1000",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.rentvideo=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api";
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        
+        Video video = new Video();
+        video.setTitle("Benchmark Feature");
+        video.setGenre("Drama");
+        video.setReleaseYear(2024);
+        video.setDurationMinutes(100);
+        video.setRentalPricePerDay(new BigDecimal("1.99"));
+        video.setTotalCopies(Integer.MAX_VALUE);
+        video.setAvailableCopies(Integer.MAX_VALUE);
+        video.setAvailable(true);
+        Long videoId = context.getBean(VideoRepository.class).save(video).getId();
+        rentalBody = "{\"videoId\":" + videoId + ",\"rentalDays\":3}";
+        
+        JsonNode login = send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"user123\"}")));
+        token = login.get("accessToken").asText();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public JsonNode catalogList() throws Exception {
+        return send(authorized("/videos").GET());
+    }
+    
+    @Benchmark
+    public JsonNode catalogSearch() throws Exception {
+        return send(authorized("/videos/search?title=dark&genre=Action").GET());
+    }
+    
+    @Benchmark
+    public JsonNode rentAndReturn() throws Exception {
+        JsonNode rental = send(authorized("/rentals")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(rentalBody)));
+        return send(authorized("/rentals/" + rental.get("id").asLong() + "/return")
+                .PUT(HttpRequest.BodyPublishers.noBody()));
+    }
+    
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token);
+    }
+    
+    private JsonNode send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + new String(response.body()));
+        }
+        return objectMapper.readTree(response.body());
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ThreadModelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
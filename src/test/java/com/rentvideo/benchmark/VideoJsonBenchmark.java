@@ -0,0 +1,61 @@
+package com.rentvideo.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rentvideo.dto.response.VideoResponse;
+import com.rentvideo.service.VideoService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of catalog listings, with the mapper configured as
+ * in application.properties (non-null inclusion, ISO dates).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VideoJsonBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    private int videos;
+    
+    private ObjectWriter writer;
+    private List<VideoResponse> responses;
+    
+    @Setup
+    public void setUp() {
+        writer = new Jackson2ObjectMapperBuilder()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writer();
+        
+        VideoService videoService = new VideoService(null, null, null, null, null, null);
+        responses = new ArrayList<>(videos);
+        for (int i = 1; i <= videos; i++) {
+            responses.add(videoService.mapToVideoResponse(Fixtures.video(i)));
+        }
+    }
+    
+    @Benchmark
+    public byte[] serializeVideoList() throws Exception {
+        return writer.writeValueAsBytes(responses);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VideoJsonBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,411 @@
+package com.rentvideo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentvideo.VideoRentalApplication;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import com.rentvideo.service.VideoFacetIndex;
+import com.rentvideo.service.VideoSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Macro benchmark: boots the application on the in-memory H2 database,
+ * registers and logs in synthetic users over HTTP, then drives a weighted
+ * mix of catalog browse, title search, rent and return requests at a fixed
+ * target rate for a fixed duration.
+ *
+ * Load is open-loop: requests are issued on schedule whether or not earlier
+ * ones have completed, and latency is measured from the scheduled send time,
+ * so a stalled server shows up as latency instead of as a lower request rate.
+ *
+ * At the end it prints per-operation throughput, error rates and latency
+ * histograms, then checks that availableCopies plus rentals still out equals
+ * totalCopies for every video. Exits with status 1 if the check fails.
+ *
+ * Arguments are key=value pairs, all optional:
+ * <pre>
+ * users=50 videos=200 rate=200 duration=60 warmup=10 maxInFlight=512
+ * mix=browse:50,search:30,rent:10,return:10
+ * </pre>
+ */
+public class WorkloadDriver {
+    
+    enum Operation {
+        BROWSE, SEARCH, RENT, RETURN
+    }
+    
+    private static final String[] SEARCH_TERMS = {
+            "dark", "knight", "god", "father", "pulp", "fiction", "redemption", "drama", "crime", "night", "lost"
+    };
+    
+    private final Map<String, String> config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private final List<Session> sessions = new ArrayList<>();
+    private List<Long> videoIds;
+    
+    WorkloadDriver(Map<String, String> config) {
+        this.config = config;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            config.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        boolean consistent = new WorkloadDriver(config).run();
+        System.exit(consistent ? 0 : 1);
+    }
+    
+    boolean run() throws Exception {
+        int users = intConfig("users", 50);
+        int videos = intConfig("videos", 200);
+        int rate = intConfig("rate", 200);
+        int duration = intConfig("duration", 60);
+        int warmup = intConfig("warmup", 10);
+        Operation[] mix = parseMix(config.getOrDefault("mix", "browse:50,search:30,rent:10,return:10"));
+        
+        try {
+            boot();
+            seedCatalog(videos);
+            loginUsers(users);
+            
+            System.out.printf("Warming up for %d s at %d req/s%n", warmup, rate);
+            drive(mix, rate, warmup);
+            awaitQuiescence();
+            stats.replaceAll((operation, ignored) -> new Stats());
+            dropped.set(0);
+            
+            System.out.printf("Measuring for %d s at %d req/s (%d users, %d videos)%n", duration, rate, users, videos);
+            long start = System.nanoTime();
+            drive(mix, rate, duration);
+            awaitQuiescence();
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            
+            report(elapsedSeconds, rate);
+            return checkInventory();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+    
+    private void boot() {
+        context = new SpringApplicationBuilder(VideoRentalApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:workload;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--auth.login-limit.client.capacity=1000000",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.rentvideo=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+    
+    private void seedCatalog(int count) {
+        VideoRepository videoRepository = context.getBean(VideoRepository.class);
+        String[] genres = {"Drama", "Action", "Comedy", "Crime", "Sci-Fi", "Horror", "Documentary"};
+        String[] words = {"Dark", "Night", "Lost", "City", "Return", "Knight", "Story", "River", "Fire", "Dream"};
+        List<Video> catalog = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Video video = new Video();
+            video.setTitle(words[i % words.length] + " " + words[(i / words.length) % words.length] + " " + i);
+            video.setDescription("Synthetic title " + i + " for the workload driver");
+            video.setDirector("Director " + (i % 37));
+            video.setGenre(genres[i % genres.length]);
+            video.setReleaseYear(1970 + i % 55);
+            video.setDurationMinutes(80 + i % 90);
+            video.setRentalPricePerDay(new BigDecimal("2.99"));
+            int copies = 1 + i % 8;
+            video.setTotalCopies(copies);
+            video.setAvailableCopies(copies);
+            video.setAvailable(true);
+            catalog.add(video);
+        }
+        videoRepository.saveAll(catalog);
+        videoIds = videoRepository.findAll().stream().map(Video::getId).toList();
+        
+        // The search and facet indexes are built on startup; pick up the new titles
+        context.getBean(VideoSearchIndex.class).rebuild();
+        context.getBean(VideoFacetIndex.class).rebuild();
+    }
+    
+    private void loginUsers(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            String username = "load" + i;
+            String password = "secret" + i;
+            post("/auth/register", null, "{\"username\":\"" + username + "\",\"password\":\"" + password
+                    + "\",\"fullName\":\"Load User " + i + "\",\"email\":\"" + username + "@example.com\"}");
+            JsonNode login = post("/auth/login", null,
+                    "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}");
+            sessions.add(new Session(login.get("accessToken").asText()));
+        }
+        System.out.printf("Logged in %d users%n", count);
+    }
+    
+    /**
+     * Issue requests on a fixed schedule for the given number of seconds
+     */
+    private void drive(Operation[] mix, int rate, int seconds) {
+        int maxInFlight = intConfig("maxInFlight", 512);
+        long intervalNanos = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        
+        for (long scheduled = start; scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            Operation operation = mix[random.nextInt(mix.length)];
+            Session session = sessions.get(random.nextInt(sessions.size()));
+            issue(operation, session, scheduled);
+        }
+    }
+    
+    private void issue(Operation operation, Session session, long scheduledNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest request;
+        Long rentalId = null;
+        switch (operation) {
+            case BROWSE -> request = random.nextBoolean()
+                    ? authorized(session, "/videos?availableOnly=true").GET().build()
+                    : authorized(session, "/videos/" + randomVideo()).GET().build();
+            case SEARCH -> request = authorized(session, "/videos/search?title="
+                    + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]).GET().build();
+            case RENT -> request = authorized(session, "/rentals")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"videoId\":" + randomVideo() + ",\"rentalDays\":" + (1 + random.nextInt(7)) + "}"))
+                    .build();
+            case RETURN -> {
+                rentalId = session.rentals.poll();
+                if (rentalId == null) {
+                    // Nothing to return yet: rent instead, so the mix stays balanced over time
+                    issue(Operation.RENT, session, scheduledNanos);
+                    return;
+                }
+                request = authorized(session, "/rentals/" + rentalId + "/return")
+                        .PUT(HttpRequest.BodyPublishers.noBody()).build();
+            }
+            default -> throw new IllegalStateException("Unknown operation " + operation);
+        }
+        
+        Stats operationStats = stats.get(operation);
+        Long returning = rentalId;
+        inFlight.incrementAndGet();
+        CompletableFuture<HttpResponse<byte[]>> response =
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        response.whenComplete((result, failure) -> {
+            inFlight.decrementAndGet();
+            operationStats.latency.record(System.nanoTime() - scheduledNanos);
+            if (failure != null) {
+                operationStats.errors.incrementAndGet();
+                if (returning != null) {
+                    session.rentals.add(returning);
+                }
+                return;
+            }
+            int status = result.statusCode();
+            if (status < 300) {
+                operationStats.ok.incrementAndGet();
+                if (operation == Operation.RENT) {
+                    session.rentals.add(rentalIdOf(result.body()));
+                }
+            } else if (operation == Operation.RENT && status == 400) {
+                // Every copy is out: a business outcome, not a failure
+                operationStats.rejected.incrementAndGet();
+            } else {
+                operationStats.errors.incrementAndGet();
+                if (returning != null && status >= 500) {
+                    session.rentals.add(returning);
+                }
+            }
+        });
+    }
+    
+    private void awaitQuiescence() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+    
+    private void report(double elapsedSeconds, int targetRate) {
+        long completed = 0;
+        long errors = 0;
+        System.out.println();
+        System.out.printf("%-8s %9s %9s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "op", "requests", "ok", "rejected", "errors", "ok/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            LatencyHistogram h = s.latency;
+            completed += h.count();
+            errors += s.errors.get();
+            System.out.printf("%-8s %9d %9d %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey().name().toLowerCase(), h.count(), s.ok.get(), s.rejected.get(), s.errors.get(),
+                    s.ok.get() / elapsedSeconds, h.meanMillis(), h.percentileMillis(50), h.percentileMillis(90),
+                    h.percentileMillis(99), h.maxMillis());
+        }
+        System.out.printf("%nThroughput %.1f req/s (target %d), error rate %.3f%%, dropped by client %d%n",
+                completed / elapsedSeconds, targetRate, completed == 0 ? 0 : 100.0 * errors / completed,
+                dropped.get());
+        
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            if (entry.getValue().latency.count() > 0) {
+                System.out.printf("%nLatency histogram: %s%n", entry.getKey().name().toLowerCase());
+                System.out.print(entry.getValue().latency.render("  "));
+            }
+        }
+    }
+    
+    /**
+     * availableCopies + rentals still out must equal totalCopies for every video
+     */
+    private boolean checkInventory() {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<String> violations = jdbc.query(
+                "select v.id, v.title, v.total_copies, v.available_copies, "
+                        + "(select count(*) from rentals r where r.video_id = v.id and r.status <> 'RETURNED') as out "
+                        + "from videos v",
+                (rs, row) -> {
+                    int total = rs.getInt("total_copies");
+                    int available = rs.getInt("available_copies");
+                    int out = rs.getInt("out");
+                    return available + out == total ? null : String.format(
+                            "video %d '%s': available %d + out %d != total %d",
+                            rs.getLong("id"), rs.getString("title"), available, out, total);
+                })
+                .stream().filter(violation -> violation != null).toList();
+        
+        System.out.println();
+        if (violations.isEmpty()) {
+            System.out.printf("Inventory consistent for all %d videos%n", videoIds.size());
+            return true;
+        }
+        System.out.printf("Inventory INCONSISTENT for %d videos:%n", violations.size());
+        violations.forEach(violation -> System.out.println("  " + violation));
+        return false;
+    }
+    
+    private long randomVideo() {
+        return videoIds.get(ThreadLocalRandom.current().nextInt(videoIds.size()));
+    }
+    
+    private HttpRequest.Builder authorized(Session session, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + session.token);
+    }
+    
+    private JsonNode post(String path, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(path + " failed with HTTP " + response.statusCode() + ": "
+                    + new String(response.body()));
+        }
+        return objectMapper.readTree(response.body());
+    }
+    
+    private Long rentalIdOf(byte[] body) {
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unreadable rental response", ex);
+        }
+    }
+    
+    private int intConfig(String key, int defaultValue) {
+        return Integer.parseInt(config.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+    
+    /**
+     * "browse:50,search:30" to a lookup table with one slot per unit of weight
+     */
+    private static Operation[] parseMix(String mix) {
+        List<Operation> table = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            Operation operation = Operation.valueOf(pair[0].trim().toUpperCase());
+            int weight = Integer.parseInt(pair[1].trim());
+            for (int i = 0; i < weight; i++) {
+                table.add(operation);
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("Empty mix: " + mix);
+        }
+        return table.toArray(new Operation[0]);
+    }
+    
+    private static final class Session {
+        
+        private final String token;
+        private final Queue<Long> rentals = new ConcurrentLinkedQueue<>();
+        
+        private Session(String token) {
+            this.token = token;
+        }
+    }
+    
+    private static final class Stats {
+        
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong ok = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+    }
+}
@@ -0,0 +1,93 @@
+package com.rentvideo.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestConcurrencyLimitFilterTest {
+    
+    @Test
+    void doFilter_WhenAllPermitsAreHeld_Answers503WithRetryAfter() throws Exception {
+        // Arrange: one request in progress, holding the only permit
+        RequestConcurrencyLimitFilter filter = new RequestConcurrencyLimitFilter(1, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(request("/api/videos"), new MockHttpServletResponse(), blocking);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        // Act
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("/api/videos"), rejected, (req, res) -> fail("should not reach the chain"));
+        
+        // Assert
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getContentAsString().contains("Too many requests in progress"));
+        assertEquals(1, filter.getActiveRequests());
+        assertEquals(1, filter.getRejectedCount());
+        
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals(0, filter.getActiveRequests());
+    }
+    
+    @Test
+    void doFilter_ActuatorIsNeverLimited() throws Exception {
+        // Arrange: no permits left
+        RequestConcurrencyLimitFilter filter = new RequestConcurrencyLimitFilter(1, 10);
+        CountDownLatch reached = new CountDownLatch(1);
+        
+        // Act
+        filter.doFilter(request("/api/videos"), new MockHttpServletResponse(),
+                (req, res) -> filter.doFilter(request("/actuator/health"), new MockHttpServletResponse(),
+                        (innerReq, innerRes) -> reached.countDown()));
+        
+        // Assert
+        assertEquals(0, reached.getCount());
+        assertEquals(0, filter.getRejectedCount());
+    }
+    
+    @Test
+    void doFilter_WhenMaxRequestsIsZero_LetsEverythingThrough() throws Exception {
+        // Arrange
+        RequestConcurrencyLimitFilter filter = new RequestConcurrencyLimitFilter(0, 10);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CountDownLatch reached = new CountDownLatch(1);
+        
+        // Act
+        filter.doFilter(request("/api/videos"), response, (req, res) -> reached.countDown());
+        
+        // Assert
+        assertEquals(0, reached.getCount());
+        assertEquals(200, response.getStatus());
+        assertEquals(0, filter.getActiveRequests());
+    }
+    
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRequestURI(uri);
+        return request;
+    }
+}
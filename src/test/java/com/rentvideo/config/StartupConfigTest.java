@@ -0,0 +1,28 @@
+package com.rentvideo.config;
+
+import com.rentvideo.service.InventoryJournalService;
+import com.rentvideo.service.OverdueRentalSweeper;
+import com.rentvideo.service.RevenueRollupService;
+import com.rentvideo.service.VideoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupConfigTest {
+    
+    private final LazyInitializationExcludeFilter filter = StartupConfig.scheduledBeansStayEager();
+    
+    @Test
+    void scheduledBeansStayEager_ExcludesBeansWithScheduledMethods() {
+        assertTrue(filter.isExcluded("overdueRentalSweeper", null, OverdueRentalSweeper.class));
+        assertTrue(filter.isExcluded("revenueRollupService", null, RevenueRollupService.class));
+        assertTrue(filter.isExcluded("inventoryJournalService", null, InventoryJournalService.class));
+    }
+    
+    @Test
+    void scheduledBeansStayEager_LeavesOtherBeansLazy() {
+        assertFalse(filter.isExcluded("videoService", null, VideoService.class));
+        assertFalse(filter.isExcluded("unknown", null, null));
+    }
+}
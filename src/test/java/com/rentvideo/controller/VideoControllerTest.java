@@ -0,0 +1,224 @@
+package com.rentvideo.controller;
+
+import com.rentvideo.model.CatalogVersion;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.CatalogVersionRepository;
+import com.rentvideo.repository.VideoRepository;
+import com.rentvideo.service.InventoryService;
+import com.rentvideo.service.VideoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs on the catalog, against committed data as other
+ * instances would see it
+ */
+@SpringBootTest(properties = "journal.enabled=false")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "USER")
+class VideoControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+    
+    @Autowired
+    private VideoService videoService;
+    
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final List<Long> created = new ArrayList<>();
+    private TransactionTemplate tx;
+    
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        videoRepository.deleteAllById(created);
+    }
+    
+    @Test
+    void getVideoById_IfNoneMatch_Returns304UntilTheVideoChanges() throws Exception {
+        // Arrange
+        Long id = createVideo();
+        String eTag = mockMvc.perform(get("/api/videos/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/videos/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        
+        tx.executeWithoutResult(status -> inventoryService.reserveCopy(id));
+        
+        MvcResult changed = mockMvc.perform(get("/api/videos/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(changed.getResponse().getContentAsString().contains("\"availableCopies\":1"));
+    }
+    
+    @Test
+    void getVideoById_IfModifiedSince_Returns304UnlessChangedSince() throws Exception {
+        // Arrange
+        Long id = createVideo();
+        String lastModified = mockMvc.perform(get("/api/videos/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/videos/{id}", id).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/videos/{id}", id).header(HttpHeaders.IF_MODIFIED_SINCE, anHourBefore(lastModified)))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    void getVideoById_Unknown_Returns404() throws Exception {
+        mockMvc.perform(get("/api/videos/{id}", Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+    
+    @Test
+    void getAllVideos_IfNoneMatch_Returns304UntilTheCatalogChanges() throws Exception {
+        // Arrange
+        Long id = createVideo();
+        String eTag = mockMvc.perform(get("/api/videos?genre=Drama"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/videos?genre=Drama").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/videos").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        
+        videoService.deleteVideo(id);
+        created.remove(id);
+        
+        mockMvc.perform(get("/api/videos?genre=Drama").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    void getAllVideos_RentCommitted_ChangesTheETagOnce() throws Exception {
+        // Arrange
+        Long first = createVideo();
+        Long second = createVideo();
+        String eTag = mockMvc.perform(get("/api/videos"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        long before = catalogVersion();
+        
+        // Act
+        tx.executeWithoutResult(status -> {
+            inventoryService.reserveCopy(first);
+            inventoryService.reserveCopy(second);
+        });
+        
+        // Assert
+        assertEquals(before + 1, catalogVersion());
+        MvcResult changed = mockMvc.perform(get("/api/videos").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+    
+    @Test
+    void getAllVideos_RolledBack_KeepsTheETag() throws Exception {
+        // Arrange
+        Long id = createVideo();
+        String eTag = mockMvc.perform(get("/api/videos"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        // Act
+        tx.executeWithoutResult(status -> {
+            inventoryService.reserveCopy(id);
+            status.setRollbackOnly();
+        });
+        
+        // Assert
+        mockMvc.perform(get("/api/videos").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+    
+    @Test
+    void getAllVideos_IfModifiedSince_Returns304UnlessChangedSince() throws Exception {
+        // Arrange
+        createVideo();
+        String lastModified = mockMvc.perform(get("/api/videos"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/videos").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/videos").header(HttpHeaders.IF_MODIFIED_SINCE, anHourBefore(lastModified)))
+                .andExpect(status().isOk());
+    }
+    
+    private long catalogVersion() {
+        return catalogVersionRepository.findById(CatalogVersion.ID).orElseThrow().getVersion();
+    }
+    
+    private static String anHourBefore(String httpDate) {
+        Instant instant = ZonedDateTime.parse(httpDate, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.minus(1, ChronoUnit.HOURS).atZone(ZoneOffset.UTC));
+    }
+    
+    private Long createVideo() {
+        Video video = new Video();
+        video.setTitle("Conditional Feature");
+        video.setGenre("Drama");
+        video.setReleaseYear(2020);
+        video.setDurationMinutes(100);
+        video.setRentalPricePerDay(new BigDecimal("2.99"));
+        video.setTotalCopies(2);
+        video.setAvailableCopies(2);
+        video.setAvailable(true);
+        Long id = videoRepository.save(video).getId();
+        created.add(id);
+        return id;
+    }
+}
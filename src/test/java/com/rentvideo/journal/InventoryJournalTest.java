@@ -0,0 +1,136 @@
+package com.rentvideo.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryJournalTest {
+    
+    // Header plus four records per segment
+    private static final int SEGMENT_SIZE = JournalSegment.HEADER_SIZE + 4 * JournalSegment.RECORD_SIZE;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void replay_ReturnsEventsInOrderAcrossSegmentsAndRestarts() throws IOException {
+        // Arrange
+        try (InventoryJournal journal = new InventoryJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 1; i <= 10; i++) {
+                assertEquals(i, journal.append(InventoryEvent.rented(i, 100 + i, 7, 199)));
+            }
+            assertTrue(journal.sync());
+            assertFalse(journal.sync());
+            assertEquals(10, journal.syncedSequence());
+            assertEquals(3, journal.segmentCount());
+            
+            // Act
+            List<InventoryEvent> all = replay(journal, 1);
+            List<InventoryEvent> tail = replay(journal, 7);
+            
+            // Assert
+            assertEquals(10, all.size());
+            assertEquals(List.of(7L, 8L, 9L, 10L), tail.stream().map(InventoryEvent::sequence).toList());
+            InventoryEvent first = all.get(0);
+            assertEquals(InventoryEvent.Type.RENTED, first.type());
+            assertEquals(1, first.videoId());
+            assertEquals(101, first.rentalId());
+            assertEquals(7, first.userId());
+            assertEquals(199, first.amountCents());
+        }
+        
+        try (InventoryJournal reopened = new InventoryJournal(directory, SEGMENT_SIZE)) {
+            assertEquals(10, reopened.lastSequence());
+            assertEquals(11, reopened.append(InventoryEvent.videoDeleted(3)));
+            assertEquals(11, replay(reopened, 1).size());
+        }
+    }
+    
+    @Test
+    void open_AfterTornWrite_ResumesAtLastIntactRecord() throws IOException {
+        // Arrange
+        try (InventoryJournal journal = new InventoryJournal(directory, SEGMENT_SIZE)) {
+            journal.append(InventoryEvent.copiesChanged(1, 3));
+            journal.append(InventoryEvent.rented(1, 10, 7, 199));
+            journal.append(InventoryEvent.rented(1, 11, 7, 199));
+        }
+        corruptRecord(JournalSegment.pathFor(directory, 1), 2);
+        
+        // Act
+        try (InventoryJournal journal = new InventoryJournal(directory, SEGMENT_SIZE)) {
+            long sequence = journal.append(InventoryEvent.returned(1, 10, 7, 0));
+            
+            // Assert
+            assertEquals(3, sequence);
+            List<InventoryEvent> events = replay(journal, 1);
+            assertEquals(3, events.size());
+            assertEquals(InventoryEvent.Type.RETURNED, events.get(2).type());
+        }
+    }
+    
+    @Test
+    void compact_KeepsLatestCopiesAndOpenRentalsOnly() throws IOException {
+        // Arrange: two full segments to compact, then the active one
+        try (InventoryJournal journal = new InventoryJournal(directory, SEGMENT_SIZE)) {
+            journal.append(InventoryEvent.copiesChanged(1, 3));
+            journal.append(InventoryEvent.rented(1, 10, 7, 199));
+            journal.append(InventoryEvent.rented(1, 11, 8, 199));
+            journal.append(InventoryEvent.returned(1, 10, 7, 0));
+            journal.append(InventoryEvent.copiesChanged(1, 5));
+            journal.append(InventoryEvent.copiesChanged(2, 1));
+            journal.append(InventoryEvent.videoDeleted(2));
+            journal.append(InventoryEvent.returned(4, 3, 9, 50));
+            journal.append(InventoryEvent.rented(1, 12, 7, 199));
+            assertEquals(3, journal.segmentCount());
+            
+            // Act
+            int dropped = journal.compact(0);
+            
+            // Assert
+            assertEquals(5, dropped);
+            assertEquals(2, journal.segmentCount());
+            assertEquals(0, journal.compact(0));
+            assertEquals(List.of(3L, 5L, 8L, 9L), sequences(replay(journal, 1)));
+            assertEquals(List.of(8L, 9L), sequences(replay(journal, 6)));
+        }
+        
+        // A compacted journal reopens and keeps counting from where it was
+        try (InventoryJournal reopened = new InventoryJournal(directory, SEGMENT_SIZE)) {
+            assertEquals(9, reopened.lastSequence());
+            assertEquals(List.of(3L, 5L, 8L, 9L), sequences(replay(reopened, 1)));
+        }
+    }
+    
+    @Test
+    void open_WhenDirectoryIsInUse_Fails() throws IOException {
+        try (InventoryJournal journal = new InventoryJournal(directory, SEGMENT_SIZE)) {
+            assertThrows(IllegalStateException.class, () -> new InventoryJournal(directory, SEGMENT_SIZE));
+        }
+    }
+    
+    private static List<InventoryEvent> replay(InventoryJournal journal, long from) throws IOException {
+        List<InventoryEvent> events = new ArrayList<>();
+        journal.replay(from, events::add);
+        return events;
+    }
+    
+    private static List<Long> sequences(List<InventoryEvent> events) {
+        return events.stream().map(InventoryEvent::sequence).toList();
+    }
+    
+    private static void corruptRecord(Path segment, int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}),
+                    JournalSegment.HEADER_SIZE + (long) index * JournalSegment.RECORD_SIZE + 30);
+        }
+    }
+}
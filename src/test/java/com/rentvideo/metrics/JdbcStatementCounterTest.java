@@ -0,0 +1,52 @@
+package com.rentvideo.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcStatementCounterTest {
+    
+    private final JdbcStatementCounter inspector = new JdbcStatementCounter();
+    
+    @AfterEach
+    void tearDown() {
+        JdbcStatementCounter.stop();
+    }
+    
+    @Test
+    void inspect_WhileCounting_ClassifiesStatements() {
+        // Arrange
+        JdbcStatementCounter.Counts counts = JdbcStatementCounter.start();
+        
+        // Act
+        inspector.inspect("select v1_0.id from videos v1_0 where v1_0.id=?");
+        inspector.inspect("  SELECT count(*) from rentals");
+        inspector.inspect("insert into rentals (id) values (?)");
+        inspector.inspect("update videos set available_copies=available_copies-1 where id=?");
+        inspector.inspect("delete from videos where id=?");
+        String sql = inspector.inspect("select next value for rentals_seq");
+        
+        // Assert
+        assertEquals("select next value for rentals_seq", sql);
+        assertEquals(2, counts.selects());
+        assertEquals(1, counts.inserts());
+        assertEquals(1, counts.updates());
+        assertEquals(1, counts.deletes());
+        assertEquals(1, counts.other());
+        assertEquals(6, counts.total());
+    }
+    
+    @Test
+    void inspect_WhenNotCounting_IgnoresStatements() {
+        // Arrange
+        JdbcStatementCounter.Counts counts = JdbcStatementCounter.start();
+        JdbcStatementCounter.stop();
+        
+        // Act
+        inspector.inspect("select 1");
+        
+        // Assert
+        assertEquals(0, counts.total());
+    }
+}
@@ -0,0 +1,76 @@
+package com.rentvideo.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EXPLAIN the SQL behind each repository finder against the migrated
+ * schema and check that it reads through the intended index, not a scan.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "journal.enabled=false")
+class SchemaIndexTest {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void rentalsByUserAndStatus_UseUserStatusIndex() {
+        assertUsesIndex("idx_rentals_user_status", "SELECT * FROM rentals WHERE user_id = ? AND status = ?",
+                1L, "ACTIVE");
+        assertUsesIndex("idx_rentals_user_status", "SELECT * FROM rentals WHERE user_id = ? AND status IN (?, ?)",
+                1L, "ACTIVE", "OVERDUE");
+    }
+    
+    @Test
+    void rentalsByUser_AreIndexed() {
+        // H2 answers these from the index it keeps for the user_id foreign key
+        assertNoTableScan("SELECT * FROM rentals WHERE user_id = ?", 1L);
+        assertNoTableScan("SELECT r.* FROM rentals r JOIN users u ON u.id = r.user_id WHERE u.username = ?", "user");
+    }
+    
+    @Test
+    void rentalsByStatus_UseStatusDueDateIndex() {
+        assertUsesIndex("idx_rentals_status_due_date", "SELECT * FROM rentals WHERE status = ?", "OVERDUE");
+        assertUsesIndex("idx_rentals_status_due_date",
+                "SELECT id FROM rentals WHERE status = ? AND due_date > ? AND due_date < ? ORDER BY due_date, id",
+                "ACTIVE", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1));
+    }
+    
+    @Test
+    void videoFinders_UseTheirIndexes() {
+        assertUsesIndex("idx_videos_genre_available", "SELECT * FROM videos WHERE genre = ?", "Drama");
+        assertUsesIndex("idx_videos_genre_available", "SELECT * FROM videos WHERE genre = ? AND available = TRUE",
+                "Drama");
+        assertUsesIndex("idx_videos_available", "SELECT * FROM videos WHERE available = TRUE");
+        assertUsesIndex("idx_videos_release_year", "SELECT * FROM videos WHERE release_year = ?", 1994);
+    }
+    
+    @Test
+    void usersByUsernameAndEmail_UseUniqueIndexes() {
+        assertNoTableScan("SELECT * FROM users WHERE username = ?", "admin");
+        assertNoTableScan("SELECT * FROM users WHERE email = ?", "admin@rentvideo.com");
+    }
+    
+    private void assertUsesIndex(String index, String sql, Object... args) {
+        String plan = plan(sql, args);
+        assertTrue(plan.toLowerCase(Locale.ROOT).contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+    
+    private void assertNoTableScan(String sql, Object... args) {
+        String plan = plan(sql, args);
+        assertFalse(plan.contains("tableScan"), () -> "Expected an index lookup in plan:\n" + plan);
+    }
+    
+    private String plan(String sql, Object... args) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+    }
+}
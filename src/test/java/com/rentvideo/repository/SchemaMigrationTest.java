@@ -0,0 +1,143 @@
+package com.rentvideo.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the H2 migrations against scratch databases: empty ones, and ones
+ * created by ddl-auto=update in the first and in the last release before
+ * migrations, seeded from the DDL Hibernate exported for those releases.
+ */
+class SchemaMigrationTest {
+    
+    private static final String FIRST_RELEASE = "db/ddl-auto/h2-first-release.sql";
+    private static final String LAST_RELEASE = "db/ddl-auto/h2-last-release.sql";
+    
+    private final SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+            "jdbc:h2:mem:migration-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+    
+    @Test
+    void migrate_FirstReleaseSchema_IsBaselinedAndBroughtUpToDate() {
+        // Arrange: identity rental ids, no sequence, rollups or sweep index yet
+        legacySchema(FIRST_RELEASE);
+        insertRentals(120, false);
+        
+        // Act
+        flyway(null).migrate();
+        
+        // Assert
+        assertEquals(List.of("1 BASELINE", "2 SQL", "3 SQL", "4 SQL", "5 SQL"), appliedMigrations());
+        assertTrue(indexes("RENTALS").containsAll(List.of("idx_rentals_status_due_date", "idx_rentals_user_status")));
+        assertTrue(indexes("VIDEOS").containsAll(List.of("idx_videos_genre_available", "idx_videos_available",
+                "idx_videos_release_year")));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_rollups", Integer.class));
+        assertSequencePast(120);
+    }
+    
+    @Test
+    void migrate_LastReleaseSchema_KeepsWhatItHasAndMovesTheSequence() {
+        // Arrange: rentals inserted with ids the sequence has not handed out
+        legacySchema(LAST_RELEASE);
+        insertRentals(120, true);
+        jdbcTemplate.update("INSERT INTO revenue_rollups (dimension, bucket, rentals, returns, rental_revenue, "
+                + "late_fees, updated_at) VALUES ('ALL', 'all', 120, 0, 238.80, 0, NOW())");
+        
+        // Act
+        flyway(null).migrate();
+        
+        // Assert
+        assertEquals(List.of("1 BASELINE", "2 SQL", "3 SQL", "4 SQL", "5 SQL"), appliedMigrations());
+        assertEquals(120, jdbcTemplate.queryForObject(
+                "SELECT rentals FROM revenue_rollups WHERE dimension = 'ALL'", Integer.class));
+        assertSequencePast(120);
+    }
+    
+    @Test
+    void migrate_KeepsSequenceThatIsAlreadyAhead() {
+        legacySchema(LAST_RELEASE);
+        jdbcTemplate.execute("ALTER SEQUENCE rentals_seq RESTART WITH 1001");
+        insertRentals(3, true);
+        
+        flyway(null).migrate();
+        
+        assertEquals(1001, jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR rentals_seq", Long.class));
+    }
+    
+    @Test
+    void migrate_EmptyDatabase_RunsEveryMigration() {
+        flyway(null).migrate();
+        
+        assertEquals(List.of("1 SQL", "2 SQL", "3 SQL", "4 SQL", "5 SQL"), appliedMigrations());
+        assertEquals(50, jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR rentals_seq", Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class));
+    }
+    
+    private void legacySchema(String script) {
+        new ResourceDatabasePopulator(new ClassPathResource(script)).execute(dataSource);
+    }
+    
+    /**
+     * Hibernate's pooled optimizer hands out the 50 ids ending at the fetched value
+     */
+    private void assertSequencePast(long maxId) {
+        long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR rentals_seq", Long.class);
+        assertTrue(next - 49 > maxId, "first id of the next block is " + (next - 49));
+    }
+    
+    private List<String> appliedMigrations() {
+        return jdbcTemplate.queryForList("SELECT \"version\" || ' ' || \"type\" "
+                + "FROM \"flyway_schema_history\" WHERE \"version\" IS NOT NULL ORDER BY \"installed_rank\"",
+                String.class);
+    }
+    
+    private List<String> indexes(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT LOWER(index_name) FROM information_schema.indexes WHERE table_name = ?", String.class, table);
+    }
+    
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .target(target != null ? target : "latest")
+                .load();
+    }
+    
+    private void insertRentals(int count, boolean withIds) {
+        jdbcTemplate.update("INSERT INTO users (username, password, full_name, email, role, active, created_at, "
+                + "updated_at) VALUES ('u', 'p', 'U', 'u@example.com', 'USER', TRUE, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO videos (title, release_year, duration_minutes, rental_price_per_day, "
+                + "total_copies, available_copies, available, created_at, updated_at) "
+                + "VALUES ('V', 2000, 90, 1.99, 1, 1, TRUE, NOW(), NOW())");
+        for (int id = 1; id <= count; id++) {
+            if (withIds) {
+                jdbcTemplate.update("INSERT INTO rentals (id, user_id, video_id, rental_date, due_date, rental_price, "
+                        + "status, created_at) SELECT ?, u.id, v.id, CURRENT_DATE, CURRENT_DATE, 1.99, 'ACTIVE', NOW() "
+                        + "FROM users u, videos v", id);
+            } else {
+                jdbcTemplate.update("INSERT INTO rentals (user_id, video_id, rental_date, due_date, rental_price, "
+                        + "status, created_at) SELECT u.id, v.id, CURRENT_DATE, CURRENT_DATE, 1.99, 'ACTIVE', NOW() "
+                        + "FROM users u, videos v");
+            }
+        }
+    }
+}
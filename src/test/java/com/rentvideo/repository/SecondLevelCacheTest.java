@@ -0,0 +1,165 @@
+package com.rentvideo.repository;
+
+import com.rentvideo.config.MetricsConfig;
+import com.rentvideo.config.SecondLevelCacheConfig;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads through the second-level cache, each in its own committed
+ * transaction as in the application
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CacheManager hibernateCacheManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate tx;
+    private Statistics statistics;
+    
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        videoRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void findById_IsServedFromTheCacheOnceLoaded() {
+        // Arrange
+        Long id = createUser("cached", "Cached User").getId();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MetricsConfig().secondLevelCacheMetrics(hibernateCacheManager).bindTo(registry);
+        read(() -> userRepository.findById(id));
+        
+        // Act
+        statistics.clear();
+        User user = read(() -> userRepository.findById(id)).orElseThrow();
+        
+        // Assert
+        assertEquals("Cached User", user.getFullName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+        assertTrue(registry.get("cache.gets").tag("cache", User.CACHE_REGION).tag("result", "hit")
+                .functionCounter().count() >= 1);
+    }
+    
+    @Test
+    void entityUpdates_AreNeverReadStale() {
+        // Arrange
+        Long id = createUser("edited", "Before").getId();
+        read(() -> userRepository.findById(id));
+        
+        // Act
+        tx.executeWithoutResult(status -> userRepository.findById(id).orElseThrow().setFullName("After"));
+        statistics.clear();
+        User edited = read(() -> userRepository.findById(id)).orElseThrow();
+        
+        // Assert
+        assertEquals("After", edited.getFullName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void videos_AreNotCached() {
+        // Arrange
+        Long id = createVideo().getId();
+        read(() -> videoRepository.findById(id));
+        
+        // Act
+        statistics.clear();
+        read(() -> videoRepository.findById(id));
+        
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void findByUsername_UsesTheQueryCacheUntilUsersChange() {
+        // Arrange
+        createUser("cached", "Before");
+        read(() -> userRepository.findByUsername("cached"));
+        
+        // Act
+        statistics.clear();
+        User cached = read(() -> userRepository.findByUsername("cached")).orElseThrow();
+        long statementsWhenCached = statistics.getPrepareStatementCount();
+        
+        tx.executeWithoutResult(status -> userRepository.findByUsername("cached").orElseThrow().setFullName("After"));
+        User changed = read(() -> userRepository.findByUsername("cached")).orElseThrow();
+        
+        // Assert
+        assertEquals("Before", cached.getFullName());
+        assertEquals(0, statementsWhenCached);
+        assertEquals("After", changed.getFullName());
+    }
+    
+    private <T> T read(Supplier<T> query) {
+        return tx.execute(status -> query.get());
+    }
+    
+    private Video createVideo() {
+        Video video = new Video();
+        video.setTitle("Cached Feature");
+        video.setReleaseYear(2020);
+        video.setDurationMinutes(100);
+        video.setRentalPricePerDay(new BigDecimal("2.99"));
+        video.setTotalCopies(2);
+        video.setAvailableCopies(2);
+        video.setAvailable(true);
+        return videoRepository.save(video);
+    }
+    
+    private User createUser(String username, String fullName) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setFullName(fullName);
+        user.setEmail(username + "@example.com");
+        user.setRole(Role.USER);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,99 @@
+package com.rentvideo.security;
+
+import com.rentvideo.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+    
+    private BoundedPasswordEncoder encoder;
+    
+    @AfterEach
+    void tearDown() {
+        encoder.close();
+    }
+    
+    @Test
+    void encodeAndMatches_DelegateOnThePoolAndRecordLatency() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, 5000);
+        
+        // Act
+        String hash = encoder.encode("secret");
+        
+        // Assert
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(3, encoder.getHashCount());
+        assertTrue(encoder.getMaxHashNanos() > 0);
+        assertEquals(0, encoder.getRejectedCount());
+    }
+    
+    @Test
+    void matches_WhenPoolAndQueueAreFull_ShedsLoad() throws Exception {
+        // Arrange: one thread busy, one hash queued
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), 1, 1, 5000);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "b"));
+        waitForQueueDepth(1);
+        
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> encoder.matches("c", "c"));
+        assertEquals(1, encoder.getRejectedCount());
+        
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void matches_WhenHashWaitsTooLong_ShedsLoad() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(new CountDownLatch(1), release), 1, 1, 50);
+        
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> encoder.matches("a", "a"));
+        assertEquals(1, encoder.getRejectedCount());
+        release.countDown();
+    }
+    
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (encoder.getQueueDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, encoder.getQueueDepth());
+    }
+    
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+            
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+}
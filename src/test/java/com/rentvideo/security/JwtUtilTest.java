@@ -0,0 +1,105 @@
+package com.rentvideo.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+    
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970337336763979244226452948404D635166546A576E5A7134743777217A25432A";
+    
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(86_400_000L, 3);
+        userDetails = new User("testuser", "password", Collections.emptyList());
+    }
+    
+    @Test
+    void validateToken_VerifiesSignatureOnceThenHitsCache() {
+        // Arrange
+        String token = jwtUtil.generateToken(userDetails);
+        
+        // Act
+        String username = jwtUtil.extractUsername(token);
+        boolean valid = jwtUtil.validateToken(token, userDetails);
+        
+        // Assert
+        assertEquals("testuser", username);
+        assertTrue(valid);
+        assertEquals(1, jwtUtil.getCacheMisses());
+        assertEquals(1, jwtUtil.getCacheHits());
+    }
+    
+    @Test
+    void validateToken_ParsedClaims_LooksTheTokenUpOnce() {
+        // Arrange
+        String token = jwtUtil.generateToken(userDetails);
+        
+        // Act: what JwtAuthenticationFilter does per request
+        Claims claims = jwtUtil.extractAllClaims(token);
+        boolean valid = jwtUtil.validateToken(claims, userDetails);
+        
+        // Assert
+        assertEquals("testuser", claims.getSubject());
+        assertTrue(valid);
+        assertFalse(jwtUtil.validateToken(claims, new User("other", "password", Collections.emptyList())));
+        assertEquals(1, jwtUtil.getCacheMisses());
+        assertEquals(0, jwtUtil.getCacheHits());
+    }
+    
+    @Test
+    void extractUsername_TamperedToken_Rejected() {
+        // Arrange
+        String token = jwtUtil.generateToken(userDetails);
+        jwtUtil.extractUsername(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        
+        // Act & Assert
+        assertThrows(SignatureException.class, () -> jwtUtil.extractUsername(tampered));
+    }
+    
+    @Test
+    void extractUsername_ExpiredToken_NotServedFromCache() throws InterruptedException {
+        // Arrange
+        JwtUtil shortLived = newJwtUtil(2_000L, 3);
+        String token = shortLived.generateToken(userDetails);
+        shortLived.extractUsername(token);
+        Thread.sleep(2_100);
+        
+        // Act & Assert
+        assertThrows(ExpiredJwtException.class, () -> shortLived.extractUsername(token));
+        assertEquals(0, shortLived.getCacheSize());
+    }
+    
+    @Test
+    void cache_StaysWithinBound() {
+        // Act
+        for (int i = 0; i < 10; i++) {
+            jwtUtil.extractUsername(jwtUtil.generateToken(new User("user" + i, "password", Collections.emptyList())));
+        }
+        
+        // Assert
+        assertTrue(jwtUtil.getCacheSize() <= 3);
+    }
+    
+    private static JwtUtil newJwtUtil(long expiration, int cacheMaxSize) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "expiration", expiration);
+        ReflectionTestUtils.setField(util, "cacheMaxSize", cacheMaxSize);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,49 @@
+package com.rentvideo.security;
+
+import com.rentvideo.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+    
+    private final LoginThrottle throttle = new LoginThrottle();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(throttle, "usernameCapacity", 2);
+        ReflectionTestUtils.setField(throttle, "usernameRefillPeriod", 60_000L);
+        ReflectionTestUtils.setField(throttle, "clientCapacity", 100);
+        ReflectionTestUtils.setField(throttle, "clientRefillPeriod", 60_000L);
+        ReflectionTestUtils.setField(throttle, "idleTimeout", 600_000L);
+        ReflectionTestUtils.setField(throttle, "maxBuckets", 1000);
+        throttle.init();
+    }
+    
+    @Test
+    void check_AttemptsThatDoNotFail_LeaveTheUsernameBudgetAlone() {
+        // Act: many logins for the account, from many clients, none of them failing
+        for (int i = 0; i < 10; i++) {
+            throttle.check("alice", "10.0.0." + i);
+        }
+        
+        // Assert
+        assertEquals(0, throttle.getRejectedByUsername());
+    }
+    
+    @Test
+    void check_AfterTooManyFailures_RejectsTheUsernameWhateverItsCase() {
+        // Arrange
+        throttle.check("alice", "10.0.0.1");
+        throttle.recordFailure("alice");
+        throttle.check("Alice", "10.0.0.2");
+        throttle.recordFailure("Alice");
+        
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> throttle.check("ALICE", "10.0.0.3"));
+        assertEquals(1, throttle.getRejectedByUsername());
+        throttle.check("bob", "10.0.0.3");
+    }
+}
@@ -0,0 +1,89 @@
+package com.rentvideo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+    
+    private final AtomicLong clock = new AtomicLong();
+    
+    @Test
+    void tryAcquire_AllowsBurstThenRefillsOverTime() {
+        // Arrange
+        TokenBucketLimiter limiter = newLimiter(3, 1000);
+        
+        // Act & Assert
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("alice"));
+        }
+        assertEquals(1000, limiter.tryAcquire("alice"));
+        assertEquals(0, limiter.tryAcquire("bob"));
+        
+        advance(500);
+        assertEquals(500, limiter.tryAcquire("alice"));
+        advance(500);
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice") > 0);
+    }
+    
+    @Test
+    void peek_ReportsTheWaitWithoutTakingATokenOrAddingABucket() {
+        // Arrange
+        TokenBucketLimiter limiter = newLimiter(1, 1000);
+        
+        // Act & Assert
+        assertEquals(0, limiter.peek("alice"));
+        assertEquals(0, limiter.size());
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertEquals(1000, limiter.peek("alice"));
+        advance(400);
+        assertEquals(600, limiter.peek("alice"));
+        assertEquals(600, limiter.peek("alice"));
+        advance(600);
+        assertEquals(0, limiter.peek("alice"));
+        assertEquals(0, limiter.tryAcquire("alice"));
+    }
+    
+    @Test
+    void tryAcquire_KeepsBucketCountBounded() {
+        // Arrange
+        TokenBucketLimiter limiter = newLimiter(1, 1000);
+        
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("user" + i);
+        }
+        
+        // Assert: 64 stripes of ceil(100 / 64) buckets each
+        assertTrue(limiter.size() <= 128, "size was " + limiter.size());
+    }
+    
+    @Test
+    void evictIdle_DropsOnlyBucketsUnusedForIdleTimeout() {
+        // Arrange
+        TokenBucketLimiter limiter = newLimiter(1, 1000);
+        limiter.tryAcquire("idle");
+        advance(50_000);
+        limiter.tryAcquire("busy");
+        advance(20_000);
+        
+        // Act
+        int evicted = limiter.evictIdle();
+        
+        // Assert
+        assertEquals(1, evicted);
+        assertEquals(1, limiter.size());
+    }
+    
+    private TokenBucketLimiter newLimiter(int capacity, long refillMillis) {
+        return new TokenBucketLimiter(capacity, refillMillis, 60_000, TimeUnit.MILLISECONDS, 100, clock::get);
+    }
+    
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
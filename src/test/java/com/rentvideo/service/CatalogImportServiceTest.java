@@ -0,0 +1,180 @@
+package com.rentvideo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentvideo.dto.response.CatalogImportResponse;
+import com.rentvideo.exception.BadRequestException;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import com.rentvideo.support.StatementBudget;
+import com.rentvideo.support.StatementCountTest;
+import com.rentvideo.support.StatementStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@StatementCountTest
+@TestPropertySource(properties = "catalog.import.chunk-size=2")
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({CatalogImportService.class, InventoryJournalService.class})
+class CatalogImportServiceTest {
+    
+    @Autowired
+    private CatalogImportService catalogImportService;
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @Autowired
+    private StatementStatistics statements;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void importCatalog_Csv_SavesValidRowsAndReportsTheRest() throws IOException {
+        // Arrange
+        saveVideo("Heat", 1995);
+        String csv = "\uFEFFTitle,Director,Genre,Release Year,duration_minutes,rentalPricePerDay,totalCopies\r\n"
+                + "\"Se7en\",David Fincher,Crime,1995,127,3.99,2\r\n"
+                + "\"Lock, Stock and Two Smoking Barrels\",Guy Ritchie,Crime,1998,107,2.99,1\r\n"
+                + "\r\n"
+                + "Broken,,,1850,90,1.99,1\r\n"
+                + " heat ,Michael Mann,Crime,1995,170,3.99,2\r\n"
+                + "SE7EN,David Fincher,Crime,1995,127,3.99,2\r\n"
+                + "\"The \"\"Quoted\"\" One\",Someone,Drama,2001,99,1.99,4\r\n";
+        
+        // Act
+        List<CatalogImportResponse> report = new ArrayList<>();
+        CatalogImportResponse summary = catalogImportService.importCatalog(stream(csv),
+                CatalogImportService.Format.CSV, report::add);
+        
+        // Assert
+        assertEquals(6, summary.getRows());
+        assertEquals(3, summary.getImported());
+        assertEquals(2, summary.getDuplicates());
+        assertEquals(1, summary.getFailed());
+        
+        CatalogImportResponse error = only(report, CatalogImportResponse.ERROR);
+        assertEquals(5, error.getRow());
+        assertEquals("Broken", error.getTitle());
+        assertEquals("Release year must be 1900 or later", error.getMessage());
+        assertEquals(List.of(6L, 7L), report.stream()
+                .filter(line -> CatalogImportResponse.DUPLICATE.equals(line.getType()))
+                .map(CatalogImportResponse::getRow)
+                .toList());
+        assertEquals(CatalogImportResponse.SUMMARY, report.get(report.size() - 1).getType());
+        
+        Video quoted = videoRepository.findByTitleContainingIgnoreCase("quoted").get(0);
+        assertEquals("The \"Quoted\" One", quoted.getTitle());
+        assertEquals(4, quoted.getAvailableCopies());
+        assertTrue(quoted.getAvailable());
+        assertEquals(1, videoRepository.findByTitleContainingIgnoreCase("Lock, Stock").size());
+        assertEquals(4, videoRepository.count());
+    }
+    
+    @Test
+    void importCatalog_QueriesExistingTitlesOncePerChunk() {
+        // Arrange: 6 rows in chunks of 2
+        StringBuilder lines = new StringBuilder();
+        for (int i = 1; i <= 6; i++) {
+            lines.append("{\"title\":\"Video ").append(i).append("\",\"releaseYear\":2000,\"durationMinutes\":90,")
+                    .append("\"rentalPricePerDay\":1.99,\"totalCopies\":1}\n");
+        }
+        
+        // Act
+        CatalogImportResponse summary = statements.assertWithin(StatementBudget.selects(3), () -> {
+            try {
+                return catalogImportService.importCatalog(stream(lines.toString()),
+                        CatalogImportService.Format.NDJSON, line -> { });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        
+        // Assert
+        assertEquals(6, summary.getImported());
+        assertEquals(6, videoRepository.count());
+    }
+    
+    @Test
+    void importCatalog_NdJson_WritesReportLines() throws IOException {
+        // Arrange
+        String ndjson = "{\"title\":\"Alien\",\"releaseYear\":1979,\"durationMinutes\":117,"
+                + "\"rentalPricePerDay\":2.99,\"totalCopies\":3}\n"
+                + "\n"
+                + "{\"title\":\"Aliens\",\"releaseYear\":\"soon\"}\n"
+                + "not json\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        // Act
+        catalogImportService.importCatalog(stream(ndjson), CatalogImportService.Format.NDJSON, out);
+        
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        JsonNode invalid = objectMapper.readTree(lines[0]);
+        assertEquals("error", invalid.get("type").asText());
+        assertEquals(3, invalid.get("row").asLong());
+        assertEquals("Invalid value for releaseYear", invalid.get("message").asText());
+        assertEquals("progress", objectMapper.readTree(lines[1]).get("type").asText());
+        JsonNode malformed = objectMapper.readTree(lines[2]);
+        assertEquals(4, malformed.get("row").asLong());
+        assertEquals("Malformed row", malformed.get("message").asText());
+        JsonNode summary = objectMapper.readTree(lines[3]);
+        assertEquals("summary", summary.get("type").asText());
+        assertEquals(1, summary.get("imported").asLong());
+        assertEquals(2, summary.get("failed").asLong());
+        assertNotNull(videoRepository.findByTitleContainingIgnoreCase("Alien").get(0).getId());
+    }
+    
+    @Test
+    void importCatalog_UnknownCsvColumn_IsRejected() {
+        String csv = "title,rating\nHeat,5\n";
+        
+        assertThrows(BadRequestException.class, () -> catalogImportService.importCatalog(stream(csv),
+                CatalogImportService.Format.CSV, line -> { }));
+    }
+    
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static CatalogImportResponse only(List<CatalogImportResponse> report, String type) {
+        List<CatalogImportResponse> lines = report.stream().filter(line -> type.equals(line.getType())).toList();
+        assertEquals(1, lines.size());
+        return lines.get(0);
+    }
+    
+    private void saveVideo(String title, int releaseYear) {
+        Video video = new Video();
+        video.setTitle(title);
+        video.setGenre("Crime");
+        video.setReleaseYear(releaseYear);
+        video.setDurationMinutes(120);
+        video.setRentalPricePerDay(new BigDecimal("3.99"));
+        video.setTotalCopies(2);
+        video.setAvailableCopies(2);
+        video.setAvailable(true);
+        video.setCreatedAt(LocalDateTime.now());
+        video.setUpdatedAt(LocalDateTime.now());
+        videoRepository.save(video);
+    }
+}
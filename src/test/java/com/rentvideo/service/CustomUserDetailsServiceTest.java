@@ -7,8 +7,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Optional;
 
@@ -54,4 +56,82 @@ class CustomUserDetailsServiceTest {
             () -> userDetailsService.loadUserByUsername("nonexistent"));
         verify(userRepository, times(1)).findByUsername("nonexistent");
     }
+    
+    @Test
+    void loadUserByUsername_CachedUntilEvicted() {
+        // Arrange
+        ReflectionTestUtils.setField(userDetailsService, "cacheTtl", 60_000L);
+        ReflectionTestUtils.setField(userDetailsService, "cacheMaxSize", 100);
+        User user = new User();
+        user.setUsername("testuser");
+        user.setPassword("password");
+        user.setActive(true);
+        
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        
+        // Act
+        userDetailsService.loadUserByUsername("testuser");
+        UserDetails cached = userDetailsService.loadUserByUsername("testuser");
+        user.setActive(false);
+        userDetailsService.evict("testuser");
+        UserDetails reloaded = userDetailsService.loadUserByUsername("testuser");
+        
+        // Assert
+        assertTrue(cached.isEnabled());
+        assertFalse(reloaded.isEnabled());
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+    
+    @Test
+    void loadUserByUsername_EvictedDuringTheLoad_DoesNotCacheTheOldState() {
+        // Arrange: the update commits and evicts while the first load is reading the old row
+        ReflectionTestUtils.setField(userDetailsService, "cacheTtl", 60_000L);
+        ReflectionTestUtils.setField(userDetailsService, "cacheMaxSize", 100);
+        User old = new User();
+        old.setUsername("testuser");
+        old.setPassword("password");
+        old.setActive(true);
+        User updated = new User();
+        updated.setUsername("testuser");
+        updated.setPassword("password");
+        updated.setActive(false);
+        
+        when(userRepository.findByUsername("testuser"))
+                .thenAnswer(invocation -> {
+                    userDetailsService.evict("testuser");
+                    return Optional.of(old);
+                })
+                .thenReturn(Optional.of(updated));
+        
+        // Act
+        UserDetails loadedDuringUpdate = userDetailsService.loadUserByUsername("testuser");
+        UserDetails next = userDetailsService.loadUserByUsername("testuser");
+        
+        // Assert
+        assertTrue(loadedDuringUpdate.isEnabled());
+        assertFalse(next.isEnabled());
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+    
+    @Test
+    void loadUserByUsername_CachedCopyKeepsCredentials() {
+        // Arrange
+        ReflectionTestUtils.setField(userDetailsService, "cacheTtl", 60_000L);
+        ReflectionTestUtils.setField(userDetailsService, "cacheMaxSize", 100);
+        User user = new User();
+        user.setUsername("testuser");
+        user.setPassword("password");
+        user.setActive(true);
+        
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        
+        // Act
+        UserDetails first = userDetailsService.loadUserByUsername("testuser");
+        ((CredentialsContainer) first).eraseCredentials();
+        UserDetails second = userDetailsService.loadUserByUsername("testuser");
+        
+        // Assert
+        assertEquals("password", second.getPassword());
+        verify(userRepository, times(1)).findByUsername("testuser");
+    }
 }
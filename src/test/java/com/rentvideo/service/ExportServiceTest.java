@@ -0,0 +1,167 @@
+package com.rentvideo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+import com.rentvideo.support.StatementBudget;
+import com.rentvideo.support.StatementCountTest;
+import com.rentvideo.support.StatementStatistics;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@StatementCountTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ExportService.class, UserService.class, CustomUserDetailsService.class, VideoService.class,
+        InventoryService.class, VideoSearchIndex.class, VideoFacetIndex.class, InventoryJournalService.class})
+class ExportServiceTest {
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private StatementStatistics statements;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+    
+    @Test
+    void exportRentals_WritesOneLinePerRentalFromOneQuery() throws IOException {
+        // Arrange
+        User user = createUser();
+        Video video = createVideos(1).get(0);
+        for (int i = 0; i < 1200; i++) {
+            createRental(user, video);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        // Act
+        long count = statements.assertWithin(StatementBudget.selects(1), () -> export(out, Kind.RENTALS));
+        
+        // Assert
+        List<JsonNode> lines = parse(out);
+        assertEquals(1200, count);
+        assertEquals(1200, lines.size());
+        assertEquals("exporter", lines.get(0).get("username").asText());
+        assertEquals("Feature 0", lines.get(0).get("videoTitle").asText());
+        for (int i = 1; i < lines.size(); i++) {
+            assertTrue(lines.get(i).get("id").asLong() > lines.get(i - 1).get("id").asLong());
+        }
+    }
+    
+    @Test
+    void exportVideos_ClearsThePersistenceContextAsItGoes() throws IOException {
+        // Arrange
+        createVideos(1200);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        // Act
+        long count = statements.assertWithin(StatementBudget.selects(1), () -> export(out, Kind.VIDEOS));
+        
+        // Assert: only the rows since the last chunk are still managed
+        assertEquals(1200, count);
+        assertEquals(1200, parse(out).size());
+        assertEquals(200, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+    
+    @Test
+    void exportUsers_WritesNdjsonWithoutPasswords() throws IOException {
+        // Arrange
+        createUser();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        // Act
+        long count = statements.assertWithin(StatementBudget.selects(1), () -> export(out, Kind.USERS));
+        
+        // Assert
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertEquals(1, count);
+        assertTrue(body.endsWith("}\n"));
+        assertEquals("exporter", parse(out).get(0).get("username").asText());
+        assertFalse(body.contains("password"));
+    }
+    
+    private enum Kind { USERS, VIDEOS, RENTALS }
+    
+    private long export(ByteArrayOutputStream out, Kind kind) {
+        try {
+            return switch (kind) {
+                case USERS -> exportService.exportUsers(out);
+                case VIDEOS -> exportService.exportVideos(out);
+                case RENTALS -> exportService.exportRentals(out);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private List<JsonNode> parse(ByteArrayOutputStream out) throws IOException {
+        List<JsonNode> nodes = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            nodes.add(objectMapper.readTree(line));
+        }
+        return nodes;
+    }
+    
+    private void createRental(User user, Video video) {
+        Rental rental = new Rental();
+        rental.setUser(user);
+        rental.setVideo(video);
+        rental.setRentalDate(LocalDate.now());
+        rental.setDueDate(LocalDate.now().plusDays(3));
+        rental.setRentalPrice(new BigDecimal("8.97"));
+        rental.setTotalAmount(new BigDecimal("8.97"));
+        entityManager.persist(rental);
+    }
+    
+    private List<Video> createVideos(int count) {
+        List<Video> videos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Video video = new Video();
+            video.setTitle("Feature " + i);
+            video.setReleaseYear(2020);
+            video.setDurationMinutes(90);
+            video.setRentalPricePerDay(new BigDecimal("2.99"));
+            entityManager.persist(video);
+            videos.add(video);
+        }
+        return videos;
+    }
+    
+    private User createUser() {
+        User user = new User();
+        user.setUsername("exporter");
+        user.setPassword("secret");
+        user.setFullName("Exporter");
+        user.setEmail("exporter@rentvideo.com");
+        user.setRole(Role.ADMIN);
+        entityManager.persist(user);
+        return user;
+    }
+}
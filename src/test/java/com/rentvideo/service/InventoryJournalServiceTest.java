@@ -0,0 +1,140 @@
+package com.rentvideo.service;
+
+import com.rentvideo.journal.InventoryEvent;
+import com.rentvideo.journal.InventoryJournal;
+import com.rentvideo.model.InventoryOutboxEntry;
+import com.rentvideo.repository.InventoryOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Events travel through the outbox in committed transactions, so that commits
+ * and rollbacks are real
+ */
+@DataJpaTest
+@Import(InventoryJournalService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryJournalServiceTest {
+    
+    @TempDir
+    static Path directory;
+    
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("journal.enabled", () -> "true");
+        registry.add("journal.directory", () -> directory.resolve("journal").toString());
+    }
+    
+    @Autowired
+    private InventoryJournalService journalService;
+    
+    @Autowired
+    private InventoryOutboxRepository outboxRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate tx;
+    
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        outboxRepository.deleteAll();
+    }
+    
+    @Test
+    void record_AfterCommit_MovesTheEventFromTheOutboxToTheJournal() throws Exception {
+        // Arrange
+        long before = journalService.getJournal().lastSequence();
+        
+        // Act
+        tx.executeWithoutResult(status -> journalService.recordDeleted(42L));
+        awaitEmptyOutbox();
+        
+        // Assert
+        List<InventoryEvent> events = replay(before + 1);
+        assertEquals(1, events.size());
+        assertEquals(InventoryEvent.Type.VIDEO_DELETED, events.get(0).type());
+        assertEquals(42L, events.get(0).videoId());
+    }
+    
+    @Test
+    void record_RolledBack_LeavesNothingToJournal() throws Exception {
+        // Arrange
+        long before = journalService.getJournal().lastSequence();
+        
+        // Act
+        tx.executeWithoutResult(status -> {
+            journalService.recordDeleted(42L);
+            status.setRollbackOnly();
+        });
+        journalService.drain();
+        
+        // Assert
+        assertEquals(0, journalService.getPendingCount());
+        assertTrue(replay(before + 1).isEmpty());
+    }
+    
+    @Test
+    void drain_WhenAnAppendFails_KeepsTheEventForTheNextDrain() throws Exception {
+        // Arrange: a committed event and a journal that refuses appends
+        InventoryJournal journal = journalService.getJournal();
+        long before = journal.lastSequence();
+        InventoryJournal closed = new InventoryJournal(directory.resolve("closed"), 1 << 16);
+        closed.close();
+        ReflectionTestUtils.setField(journalService, "journal", closed);
+        outboxRepository.save(new InventoryOutboxEntry(InventoryEvent.copiesChanged(7L, 3)));
+        long failuresBefore = journalService.getFailureCount();
+        
+        // Act
+        journalService.drain();
+        long pendingAfterFailure = journalService.getPendingCount();
+        ReflectionTestUtils.setField(journalService, "journal", journal);
+        journalService.drain();
+        
+        // Assert
+        assertEquals(failuresBefore + 1, journalService.getFailureCount());
+        assertEquals(1, pendingAfterFailure);
+        assertEquals(0, journalService.getPendingCount());
+        List<InventoryEvent> events = replay(before + 1);
+        assertEquals(1, events.size());
+        assertEquals(3, events.get(0).quantity());
+    }
+    
+    private void awaitEmptyOutbox() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journalService.getPendingCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "outbox was not drained");
+            Thread.sleep(10);
+        }
+    }
+    
+    private List<InventoryEvent> replay(long fromSequence) throws IOException {
+        List<InventoryEvent> events = new ArrayList<>();
+        journalService.replay(fromSequence, events::add);
+        return events;
+    }
+}
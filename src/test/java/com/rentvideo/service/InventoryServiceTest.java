@@ -0,0 +1,215 @@
+package com.rentvideo.service;
+
+import com.rentvideo.exception.VideoNotAvailableException;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(InventoryService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceTest {
+    
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+    
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @AfterEach
+    void cleanUp() {
+        videoRepository.deleteAll();
+    }
+    
+    @Test
+    void reserveCopy_UnderContention_NeverOversells() throws Exception {
+        // Arrange
+        int copies = 25;
+        Long videoId = createVideo(copies).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId));
+                        reserved.incrementAndGet();
+                    } catch (VideoNotAvailableException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began);
+        pool.shutdown();
+        
+        // Assert
+        Video video = videoRepository.findById(videoId).orElseThrow();
+        assertEquals(copies, reserved.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - copies, rejected.get());
+        assertEquals(0, video.getAvailableCopies());
+        assertFalse(video.getAvailable());
+        assertEquals(0, inventoryService.cachedAvailableCopies(videoId));
+        System.out.printf("%d threads x %d attempts on %d copies: %d ms%n",
+                THREADS, ATTEMPTS_PER_THREAD, copies, elapsedMs);
+    }
+    
+    @Test
+    void reserveCopy_RolledBack_GivesCopyBack() {
+        // Arrange
+        Long videoId = createVideo(1).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        
+        // Act
+        tx.executeWithoutResult(status -> {
+            inventoryService.reserveCopy(videoId);
+            status.setRollbackOnly();
+        });
+        
+        // Assert
+        assertEquals(1, inventoryService.cachedAvailableCopies(videoId));
+        assertEquals(1, videoRepository.findById(videoId).orElseThrow().getAvailableCopies());
+    }
+    
+    @Test
+    void releaseCopy_CommittedWhileCounterIsSeeded_IsNotLost() throws Exception {
+        // Arrange: sold out, no counter yet
+        Long videoId = createVideo(1).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId));
+        inventoryService.evict(videoId);
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch seeded = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        
+        // Act: a return is in flight while a rent seeds the counter from the pre-return value
+        Future<?> giveBack = pool.submit(() -> tx.executeWithoutResult(status -> {
+            inventoryService.releaseCopy(videoId);
+            released.countDown();
+            try {
+                seeded.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(released.await(10, TimeUnit.SECONDS));
+        assertThrows(VideoNotAvailableException.class,
+                () -> tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId)));
+        int seededCopies = inventoryService.cachedAvailableCopies(videoId);
+        seeded.countDown();
+        giveBack.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        
+        // Assert: the stale counter is dropped and the returned copy can be rented
+        assertEquals(0, seededCopies);
+        assertEquals(-1, inventoryService.cachedAvailableCopies(videoId));
+        tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId));
+        assertEquals(0, videoRepository.findById(videoId).orElseThrow().getAvailableCopies());
+    }
+    
+    @Test
+    void reserveCopy_CounterTooLow_RechecksDatabase() {
+        // Arrange: the counter says sold out, but a copy came back through another instance
+        Long videoId = createVideo(1).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId));
+        tx.executeWithoutResult(status -> videoRepository.incrementAvailableCopies(videoId, 1, LocalDateTime.now()));
+        
+        // Act
+        tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId));
+        
+        // Assert
+        assertEquals(0, videoRepository.findById(videoId).orElseThrow().getAvailableCopies());
+        assertEquals(0, inventoryService.cachedAvailableCopies(videoId));
+    }
+    
+    @Test
+    void releaseCopy_NeverExceedsTotalCopies() {
+        // Arrange
+        Long videoId = createVideo(2).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> inventoryService.reserveCopy(videoId));
+        
+        // Act
+        tx.executeWithoutResult(status -> inventoryService.releaseCopy(videoId));
+        tx.executeWithoutResult(status -> inventoryService.releaseCopy(videoId));
+        
+        // Assert
+        Video video = videoRepository.findById(videoId).orElseThrow();
+        assertEquals(2, video.getAvailableCopies());
+        assertTrue(video.getAvailable());
+        assertEquals(2, inventoryService.cachedAvailableCopies(videoId));
+    }
+    
+    @Test
+    void releaseCopies_CapsAtTotalCopiesAndReseedsCounter() {
+        // Arrange
+        Long videoId = createVideo(3).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> inventoryService.reserveCopies(videoId, 3));
+        
+        // Act
+        tx.executeWithoutResult(status -> inventoryService.releaseCopies(videoId, 2));
+        
+        // Assert
+        assertEquals(2, videoRepository.findById(videoId).orElseThrow().getAvailableCopies());
+        assertEquals(-1, inventoryService.cachedAvailableCopies(videoId));
+        
+        tx.executeWithoutResult(status -> inventoryService.releaseCopies(videoId, 5));
+        Video video = videoRepository.findById(videoId).orElseThrow();
+        assertEquals(3, video.getAvailableCopies());
+        assertTrue(video.getAvailable());
+    }
+    
+    private Video createVideo(int copies) {
+        Video video = new Video();
+        video.setTitle("New Release");
+        video.setReleaseYear(2024);
+        video.setDurationMinutes(120);
+        video.setRentalPricePerDay(new BigDecimal("4.99"));
+        video.setTotalCopies(copies);
+        video.setAvailableCopies(copies);
+        video.setAvailable(true);
+        return videoRepository.save(video);
+    }
+}
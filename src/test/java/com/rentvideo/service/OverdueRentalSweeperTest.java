@@ -0,0 +1,129 @@
+package com.rentvideo.service;
+
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.RentalRepository;
+import com.rentvideo.repository.UserRepository;
+import com.rentvideo.repository.VideoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "rentals.overdue-sweep.chunk-size=3")
+@Import(OverdueRentalSweeper.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // the watermark lives in the sweeper bean
+class OverdueRentalSweeperTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+    
+    @Autowired
+    private OverdueRentalSweeper sweeper;
+    
+    @Autowired
+    private RentalRepository rentalRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    private User user;
+    private Video video;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("renter");
+        user.setEmail("renter@example.com");
+        user.setPassword("secret");
+        user.setFullName("Renter");
+        user.setRole(Role.USER);
+        user.setActive(true);
+        user = userRepository.save(user);
+        
+        video = new Video();
+        video.setTitle("Late Night");
+        video.setReleaseYear(2020);
+        video.setDurationMinutes(90);
+        video.setRentalPricePerDay(new BigDecimal("2.99"));
+        video = videoRepository.save(video);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        rentalRepository.deleteAll();
+        videoRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void sweep_MarksOnlyActiveRentalsPastDueInChunks() {
+        // Arrange
+        List<Long> late = createRentals(7, TODAY.minusDays(2), Rental.RentalStatus.ACTIVE);
+        List<Long> dueToday = createRentals(2, TODAY, Rental.RentalStatus.ACTIVE);
+        List<Long> returned = createRentals(1, TODAY.minusDays(5), Rental.RentalStatus.RETURNED);
+        
+        // Act
+        int processed = sweeper.sweep(TODAY);
+        
+        // Assert
+        assertEquals(7, processed);
+        assertStatus(late, Rental.RentalStatus.OVERDUE);
+        assertStatus(dueToday, Rental.RentalStatus.ACTIVE);
+        assertStatus(returned, Rental.RentalStatus.RETURNED);
+        assertEquals(TODAY.minusDays(1), sweeper.getWatermark());
+        assertEquals(7, sweeper.getLastRowsProcessed());
+    }
+    
+    @Test
+    void sweep_OnlyPicksUpRentalsThatCrossedTheirDueDateSinceLastRun() {
+        // Arrange
+        createRentals(2, TODAY.minusDays(1), Rental.RentalStatus.ACTIVE);
+        List<Long> dueToday = createRentals(3, TODAY, Rental.RentalStatus.ACTIVE);
+        assertEquals(2, sweeper.sweep(TODAY));
+        
+        // Act & Assert
+        assertEquals(0, sweeper.sweep(TODAY));
+        assertEquals(3, sweeper.sweep(TODAY.plusDays(1)));
+        assertStatus(dueToday, Rental.RentalStatus.OVERDUE);
+        assertEquals(TODAY, sweeper.getWatermark());
+        assertEquals(5, sweeper.getTotalRowsProcessed());
+    }
+    
+    private List<Long> createRentals(int count, LocalDate dueDate, Rental.RentalStatus status) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Rental rental = new Rental();
+            rental.setUser(user);
+            rental.setVideo(video);
+            rental.setRentalDate(dueDate.minusDays(3));
+            rental.setDueDate(dueDate);
+            rental.setRentalPrice(new BigDecimal("8.97"));
+            rental.setTotalAmount(new BigDecimal("8.97"));
+            rental.setStatus(status);
+            ids.add(rentalRepository.save(rental).getId());
+        }
+        return ids;
+    }
+    
+    private void assertStatus(List<Long> ids, Rental.RentalStatus expected) {
+        rentalRepository.findAllById(ids).forEach(rental -> assertEquals(expected, rental.getStatus()));
+    }
+}
@@ -0,0 +1,227 @@
+package com.rentvideo.service;
+
+import com.rentvideo.dto.request.BatchRentalRequest;
+import com.rentvideo.dto.request.BulkReturnRequest;
+import com.rentvideo.dto.request.RentalRequest;
+import com.rentvideo.dto.response.BulkReturnResponse;
+import com.rentvideo.dto.response.RentalResponse;
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+import com.rentvideo.support.StatementBudget;
+import com.rentvideo.support.StatementCountTest;
+import com.rentvideo.support.StatementStatistics;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query budgets for every RentalService method
+ */
+@StatementCountTest
+@Import({RentalService.class, VideoService.class, UserService.class, CustomUserDetailsService.class,
+        InventoryService.class, VideoSearchIndex.class, VideoFacetIndex.class, RevenueRollupService.class,
+        InventoryJournalService.class})
+class RentalServiceQueryCountTest {
+    
+    @Autowired
+    private RentalService rentalService;
+    
+    @Autowired
+    private StatementStatistics statements;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+    
+    private User renter;
+    
+    @BeforeEach
+    void setUp() {
+        renter = createUser("renter");
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("renter", null, "ROLE_USER"));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void getAllRentals_IssuesOneSelectRegardlessOfRowCount() {
+        // Arrange
+        createRentals(renter, createVideo(1), 1000);
+        
+        // Act
+        List<RentalResponse> rentals = statements.assertWithin(StatementBudget.selects(1),
+                () -> rentalService.getAllRentals());
+        
+        // Assert
+        assertEquals(1000, rentals.size());
+    }
+    
+    @Test
+    void getActiveRentals_IssuesOneSelect() {
+        // Arrange
+        createRentals(renter, createVideo(1), 50);
+        
+        // Act
+        List<RentalResponse> rentals = statements.assertWithin(StatementBudget.selects(1),
+                () -> rentalService.getActiveRentals());
+        
+        // Assert
+        assertEquals(50, rentals.size());
+    }
+    
+    @Test
+    void getCurrentUserRentals_IssuesOneSelect() {
+        // Arrange
+        createRentals(renter, createVideo(1), 50);
+        createRentals(createUser("other"), createVideo(1), 5);
+        
+        // Act
+        List<RentalResponse> rentals = statements.assertWithin(StatementBudget.selects(1),
+                () -> rentalService.getCurrentUserRentals());
+        
+        // Assert
+        assertEquals(50, rentals.size());
+        assertEquals("renter", rentals.get(0).getUsername());
+        assertEquals("Projection", rentals.get(0).getVideoTitle());
+    }
+    
+    @Test
+    void rentVideo_LoadsUserAndVideoThenReservesAndInserts() {
+        // Arrange
+        Video video = createVideo(3);
+        
+        // Act: user, video, counter seed; one reservation; one rental
+        RentalResponse rental = statements.assertWithin(StatementBudget.selects(3).inserts(1).updates(1),
+                () -> rentalService.rentVideo(rentalRequest(video, 3)));
+        
+        // Assert
+        assertEquals("renter", rental.getUsername());
+    }
+    
+    @Test
+    void rentVideos_CostScalesWithDistinctVideosNotItems() {
+        // Arrange
+        List<Video> videos = List.of(createVideo(10), createVideo(10), createVideo(10));
+        BatchRentalRequest request = new BatchRentalRequest();
+        List<RentalRequest> items = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            items.add(rentalRequest(videos.get(i % videos.size()), 2));
+        }
+        request.setRentals(items);
+        
+        // Act: user and videos once, then a counter seed per video;
+        // one reservation per video; rentals inserted as one batch
+        List<RentalResponse> rentals = statements.assertWithin(
+                StatementBudget.selects(2 + videos.size()).inserts(1).updates(videos.size()),
+                () -> rentalService.rentVideos(request));
+        
+        // Assert
+        assertEquals(12, rentals.size());
+    }
+    
+    @Test
+    void returnVideo_LoadsRentalAndVideoThenUpdatesBoth() {
+        // Arrange
+        Rental rental = createRentals(renter, createVideo(1), 1).get(0);
+        
+        // Act
+        RentalResponse returned = statements.assertWithin(StatementBudget.selects(3).updates(2),
+                () -> rentalService.returnVideo(rental.getId()));
+        
+        // Assert
+        assertEquals(Rental.RentalStatus.RETURNED, returned.getStatus());
+    }
+    
+    @Test
+    void returnVideos_IssuesOneSelectForAnyNumberOfUsers() {
+        // Arrange: 20 rentals of 2 videos by 5 different users
+        List<Video> videos = List.of(createVideo(20), createVideo(20));
+        BulkReturnRequest request = new BulkReturnRequest();
+        List<Long> ids = new ArrayList<>();
+        for (int u = 0; u < 5; u++) {
+            User user = createUser("bulk" + u);
+            for (Video video : videos) {
+                createRentals(user, video, 2).forEach(rental -> ids.add(rental.getId()));
+            }
+        }
+        request.setRentalIds(ids);
+        
+        // Act: one select, one update per video and the rentals as one batch
+        BulkReturnResponse response = statements.assertWithin(
+                StatementBudget.selects(1).updates(1 + videos.size()),
+                () -> rentalService.returnVideos(request));
+        
+        // Assert
+        assertEquals(20, response.getReturned());
+        assertEquals("bulk0", response.getResults().get(0).getRental().getUsername());
+    }
+    
+    private static RentalRequest rentalRequest(Video video, int days) {
+        RentalRequest request = new RentalRequest();
+        request.setVideoId(video.getId());
+        request.setRentalDays(days);
+        return request;
+    }
+    
+    private List<Rental> createRentals(User user, Video video, int count) {
+        List<Rental> rentals = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Rental rental = new Rental();
+            rental.setUser(user);
+            rental.setVideo(video);
+            rental.setRentalDate(LocalDate.now().minusDays(5));
+            rental.setDueDate(LocalDate.now().minusDays(2));
+            rental.setRentalPrice(new BigDecimal("8.97"));
+            rental.setTotalAmount(new BigDecimal("8.97"));
+            entityManager.persist(rental);
+            rentals.add(rental);
+        }
+        return rentals;
+    }
+    
+    private Video createVideo(int copies) {
+        Video video = new Video();
+        video.setTitle("Projection");
+        video.setGenre("Drama");
+        video.setReleaseYear(2020);
+        video.setDurationMinutes(90);
+        video.setRentalPricePerDay(new BigDecimal("2.99"));
+        video.setTotalCopies(copies);
+        video.setAvailableCopies(copies);
+        entityManager.persist(video);
+        return video;
+    }
+    
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setFullName(username);
+        user.setEmail(username + "@rentvideo.com");
+        user.setRole(Role.USER);
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,177 @@
+package com.rentvideo.service;
+
+import com.rentvideo.dto.request.BatchRentalRequest;
+import com.rentvideo.dto.request.RentalRequest;
+import com.rentvideo.dto.response.RentalResponse;
+import com.rentvideo.exception.VideoNotAvailableException;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.RentalRepository;
+import com.rentvideo.repository.RevenueRollupRepository;
+import com.rentvideo.repository.UserRepository;
+import com.rentvideo.repository.VideoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch rentals against committed data, so that a failed batch really rolls
+ * back and runs its rollback callbacks
+ */
+@DataJpaTest
+@TestPropertySource(properties = "journal.enabled=false")
+@Import({RentalService.class, VideoService.class, UserService.class, CustomUserDetailsService.class,
+        InventoryService.class, VideoSearchIndex.class, VideoFacetIndex.class, RevenueRollupService.class,
+        InventoryJournalService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // inventory counters live in the service bean
+class RentalServiceTest {
+    
+    @Autowired
+    private RentalService rentalService;
+    
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Autowired
+    private RentalRepository rentalRepository;
+    
+    @Autowired
+    private RevenueRollupRepository rollupRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+    
+    private Video twoCopies;
+    private Video oneCopy;
+    
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("renter");
+        user.setPassword("secret");
+        user.setFullName("Renter");
+        user.setEmail("renter@rentvideo.com");
+        user.setRole(Role.USER);
+        userRepository.save(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("renter", null, "ROLE_USER"));
+        
+        twoCopies = createVideo("Two Copies", 2);
+        oneCopy = createVideo("One Copy", 1);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        rollupRepository.deleteAll();
+        rentalRepository.deleteAll();
+        videoRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void rentVideos_DuplicateIds_RentOneCopyPerItem() {
+        // Act
+        List<RentalResponse> rentals = rentalService.rentVideos(batch(twoCopies, oneCopy, twoCopies));
+        
+        // Assert
+        assertEquals(List.of(twoCopies.getId(), oneCopy.getId(), twoCopies.getId()),
+                rentals.stream().map(RentalResponse::getVideoId).toList());
+        assertEquals(3, rentalRepository.count());
+        Map<Long, Video> videos = reload();
+        assertEquals(0, videos.get(twoCopies.getId()).getAvailableCopies());
+        assertFalse(videos.get(twoCopies.getId()).getAvailable());
+        assertEquals(0, videos.get(oneCopy.getId()).getAvailableCopies());
+        assertEquals(0, inventoryService.cachedAvailableCopies(twoCopies.getId()));
+    }
+    
+    @Test
+    void rentVideos_OneTitleRunsOut_RentsNothing() {
+        // Act: the first title is reserved before the second runs out
+        assertThrows(VideoNotAvailableException.class,
+                () -> rentalService.rentVideos(batch(twoCopies, oneCopy, oneCopy)));
+        
+        // Assert
+        assertEquals(0, rentalRepository.count());
+        assertEquals(0, rollupRepository.count());
+        Map<Long, Video> videos = reload();
+        assertEquals(2, videos.get(twoCopies.getId()).getAvailableCopies());
+        assertTrue(videos.get(twoCopies.getId()).getAvailable());
+        assertEquals(1, videos.get(oneCopy.getId()).getAvailableCopies());
+    }
+    
+    @Test
+    void rentVideos_RolledBack_RestoresTheCounters() {
+        // Arrange
+        assertThrows(VideoNotAvailableException.class,
+                () -> rentalService.rentVideos(batch(twoCopies, twoCopies, oneCopy, oneCopy)));
+        
+        // Act
+        int afterRollback = inventoryService.cachedAvailableCopies(twoCopies.getId());
+        List<RentalResponse> rentals = rentalService.rentVideos(batch(twoCopies, twoCopies, oneCopy));
+        
+        // Assert
+        assertEquals(2, afterRollback);
+        assertEquals(3, rentals.size());
+        assertEquals(0, inventoryService.cachedAvailableCopies(twoCopies.getId()));
+        assertEquals(0, inventoryService.cachedAvailableCopies(oneCopy.getId()));
+        assertThrows(VideoNotAvailableException.class, () -> rentalService.rentVideos(batch(oneCopy)));
+    }
+    
+    private Map<Long, Video> reload() {
+        return videoRepository.findAllById(List.of(twoCopies.getId(), oneCopy.getId())).stream()
+                .collect(Collectors.toMap(Video::getId, Function.identity()));
+    }
+    
+    private static BatchRentalRequest batch(Video... videos) {
+        BatchRentalRequest request = new BatchRentalRequest();
+        request.setRentals(Stream.of(videos).map(video -> {
+            RentalRequest item = new RentalRequest();
+            item.setVideoId(video.getId());
+            item.setRentalDays(3);
+            return item;
+        }).toList());
+        return request;
+    }
+    
+    private Video createVideo(String title, int copies) {
+        Video video = new Video();
+        video.setTitle(title);
+        video.setGenre("Drama");
+        video.setReleaseYear(2020);
+        video.setDurationMinutes(90);
+        video.setRentalPricePerDay(new BigDecimal("2.99"));
+        video.setTotalCopies(copies);
+        video.setAvailableCopies(copies);
+        video.setAvailable(true);
+        return videoRepository.save(video);
+    }
+}
@@ -0,0 +1,221 @@
+package com.rentvideo.service;
+
+import com.rentvideo.dto.response.RevenueRollupResponse;
+import com.rentvideo.model.Rental;
+import com.rentvideo.model.RevenueRollup;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.RentalRepository;
+import com.rentvideo.repository.RevenueRollupRepository;
+import com.rentvideo.repository.UserRepository;
+import com.rentvideo.repository.VideoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({RevenueRollupService.class, VideoFacetIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // pending counters live in the service bean
+class RevenueRollupServiceTest {
+    
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    
+    @Autowired
+    private RevenueRollupService rollupService;
+    
+    @Autowired
+    private VideoFacetIndex facetIndex;
+    
+    @Autowired
+    private RentalRepository rentalRepository;
+    
+    @Autowired
+    private RevenueRollupRepository rollupRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate tx;
+    private User user;
+    private Video drama;
+    private Video action;
+    
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        
+        user = new User();
+        user.setUsername("renter");
+        user.setEmail("renter@example.com");
+        user.setPassword("secret");
+        user.setFullName("Renter");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+        
+        drama = createVideo("Drama", 2);
+        action = createVideo("Action", 3);
+        facetIndex.rebuild();
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        rollupRepository.deleteAll();
+        rentalRepository.deleteAll();
+        videoRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void record_AfterCommit_UpdatesEveryDimensionBeforeAndAfterFlush() {
+        // Arrange
+        Rental first = rent(drama, DAY, "7.98");
+        rent(drama, DAY, "3.99");
+        rent(action, DAY.plusDays(1), "5.00");
+        giveBack(first, DAY.plusDays(4), "2.00");
+        
+        // Act & Assert: pending only
+        assertTotals(rollupService.getSummary(), 3, 1, "16.97", "2.00");
+        
+        assertEquals(8, rollupService.flush());
+        
+        // Act & Assert: stored only
+        RevenueRollupResponse summary = rollupService.getSummary();
+        assertTotals(summary, 3, 1, "16.97", "2.00");
+        assertEquals(new BigDecimal("18.97"), summary.getTotalRevenue());
+        assertEquals(2, summary.getCopiesOut());
+        assertEquals(5, summary.getTotalCopies());
+        assertEquals(0.4, summary.getUtilization(), 1e-9);
+        
+        RevenueRollupResponse video = rollupService.getVideo(drama.getId());
+        assertTotals(video, 2, 1, "11.97", "2.00");
+        assertEquals(0.5, video.getUtilization(), 1e-9);
+        
+        List<RevenueRollupResponse> genres = rollupService.getAll(RevenueRollup.Dimension.GENRE);
+        assertEquals(List.of("Action", "Drama"), genres.stream().map(RevenueRollupResponse::getBucket).toList());
+        assertTotals(genres.get(0), 1, 0, "5.00", "0.00");
+        
+        List<RevenueRollupResponse> days = rollupService.getDays(DAY, DAY.plusDays(4));
+        assertEquals(List.of("2024-03-01", "2024-03-02", "2024-03-05"),
+                days.stream().map(RevenueRollupResponse::getBucket).toList());
+        assertTotals(days.get(2), 0, 1, "0.00", "2.00");
+        assertNull(days.get(2).getCopiesOut());
+        
+        // Act & Assert: stored plus pending
+        rent(action, DAY.plusDays(1), "5.00");
+        assertTotals(rollupService.getDays(DAY.plusDays(1), DAY.plusDays(1)).get(0), 2, 0, "10.00", "0.00");
+    }
+    
+    @Test
+    void record_WhenTransactionRollsBack_CountsNothing() {
+        // Act
+        tx.executeWithoutResult(status -> {
+            rollupService.recordRental(newRental(drama, DAY, "3.99"));
+            status.setRollbackOnly();
+        });
+        
+        // Assert
+        assertTotals(rollupService.getSummary(), 0, 0, "0.00", "0.00");
+        assertEquals(0, rollupService.flush());
+    }
+    
+    @Test
+    void rebuild_MatchesIncrementalRollups() {
+        // Arrange: late fee of 1.995 is stored rounded to 2 places
+        Rental late = rent(drama, DAY, "3.99");
+        rent(action, DAY, "5.00");
+        rent(action, DAY.plusDays(2), "5.00");
+        giveBack(late, DAY.plusDays(3), "1.995");
+        rollupService.flush();
+        List<RevenueRollupResponse> incremental = snapshot();
+        
+        // Act
+        rollupRepository.deleteAll();
+        int written = rollupService.rebuild();
+        
+        // Assert
+        assertEquals(incremental, snapshot());
+        assertEquals(8, written);
+        assertEquals(new BigDecimal("2.00"), rollupService.getVideo(drama.getId()).getLateFees());
+    }
+    
+    private List<RevenueRollupResponse> snapshot() {
+        List<RevenueRollupResponse> all = new ArrayList<>();
+        all.add(rollupService.getSummary());
+        all.addAll(rollupService.getAll(RevenueRollup.Dimension.VIDEO));
+        all.addAll(rollupService.getAll(RevenueRollup.Dimension.GENRE));
+        all.addAll(rollupService.getDays(DAY, DAY.plusDays(30)));
+        return all;
+    }
+    
+    private Rental rent(Video video, LocalDate day, String price) {
+        return tx.execute(status -> {
+            Rental rental = rentalRepository.save(newRental(video, day, price));
+            rollupService.recordRental(rental);
+            return rental;
+        });
+    }
+    
+    private void giveBack(Rental rental, LocalDate day, String lateFee) {
+        tx.executeWithoutResult(status -> {
+            Rental managed = rentalRepository.findById(rental.getId()).orElseThrow();
+            managed.setReturnDate(day);
+            managed.setStatus(Rental.RentalStatus.RETURNED);
+            managed.setLateFee(new BigDecimal(lateFee));
+            rollupService.recordReturn(managed);
+        });
+    }
+    
+    private Rental newRental(Video video, LocalDate day, String price) {
+        Rental rental = new Rental();
+        rental.setUser(user);
+        rental.setVideo(video);
+        rental.setRentalDate(day);
+        rental.setDueDate(day.plusDays(2));
+        rental.setRentalPrice(new BigDecimal(price));
+        rental.setTotalAmount(new BigDecimal(price));
+        return rental;
+    }
+    
+    private Video createVideo(String genre, int copies) {
+        Video video = new Video();
+        video.setTitle(genre + " Feature");
+        video.setGenre(genre);
+        video.setReleaseYear(2020);
+        video.setDurationMinutes(90);
+        video.setRentalPricePerDay(new BigDecimal("3.99"));
+        video.setTotalCopies(copies);
+        video.setAvailableCopies(copies);
+        return videoRepository.save(video);
+    }
+    
+    private static void assertTotals(RevenueRollupResponse rollup, long rentals, long returns,
+                                     String rentalRevenue, String lateFees) {
+        assertEquals(rentals, rollup.getRentals());
+        assertEquals(returns, rollup.getReturns());
+        assertEquals(new BigDecimal(rentalRevenue), rollup.getRentalRevenue());
+        assertEquals(new BigDecimal(lateFees), rollup.getLateFees());
+    }
+}
@@ -0,0 +1,118 @@
+package com.rentvideo.service;
+
+import com.rentvideo.dto.request.RegisterRequest;
+import com.rentvideo.dto.request.UpdateUserRequest;
+import com.rentvideo.dto.response.UserResponse;
+import com.rentvideo.model.Role;
+import com.rentvideo.model.User;
+import com.rentvideo.support.StatementBudget;
+import com.rentvideo.support.StatementCountTest;
+import com.rentvideo.support.StatementStatistics;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Query budgets for every UserService method
+ */
+@StatementCountTest
+@Import({UserService.class, CustomUserDetailsService.class})
+class UserServiceQueryCountTest {
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private StatementStatistics statements;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+    
+    private User member;
+    
+    @BeforeEach
+    void setUp() {
+        member = createUser("member");
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("member", null, "ROLE_USER"));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void reads_IssueOneSelect() {
+        // Arrange
+        for (int i = 0; i < 100; i++) {
+            createUser("user" + i);
+        }
+        
+        // Act & Assert
+        assertEquals(101, statements.assertWithin(StatementBudget.selects(1),
+                () -> userService.getAllUsers()).size());
+        assertEquals("member", statements.assertWithin(StatementBudget.selects(1),
+                () -> userService.getCurrentUser()).getUsername());
+        assertEquals("user7", statements.assertWithin(StatementBudget.selects(1),
+                () -> userService.getUserResponseByUsername("user7")).getUsername());
+    }
+    
+    @Test
+    void registerUser_ChecksUniquenessThenInserts() {
+        // Arrange
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername("newcomer");
+        request.setPassword("password123");
+        request.setFullName("New Comer");
+        request.setEmail("newcomer@rentvideo.com");
+        when(passwordEncoder.encode(any())).thenReturn("hash");
+        
+        // Act
+        UserResponse user = statements.assertWithin(StatementBudget.selects(2).inserts(1),
+                () -> userService.registerUser(request));
+        
+        // Assert
+        assertEquals("newcomer", user.getUsername());
+    }
+    
+    @Test
+    void updates_LoadAndUpdateOneRow() {
+        // Arrange
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setFullName("Renamed Member");
+        request.setEmail("renamed@rentvideo.com");
+        
+        // Act & Assert: the email change adds one uniqueness check
+        statements.assertWithin(StatementBudget.selects(2).updates(1), () -> userService.updateCurrentUser(request));
+        statements.assertWithin(StatementBudget.selects(1).updates(1),
+                () -> userService.updateUserStatus(member.getId(), false));
+        statements.assertWithin(StatementBudget.selects(1).updates(1),
+                () -> userService.updateUserRole(member.getId(), Role.ADMIN));
+    }
+    
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setFullName(username);
+        user.setEmail(username + "@rentvideo.com");
+        user.setRole(Role.USER);
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,175 @@
+package com.rentvideo.service;
+
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import com.rentvideo.service.VideoFacetIndex.FacetCounts;
+import com.rentvideo.service.VideoFacetIndex.Filter;
+import com.rentvideo.service.VideoFacetIndex.Match;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VideoFacetIndexTest {
+    
+    @Mock
+    private VideoRepository videoRepository;
+    
+    @InjectMocks
+    private VideoFacetIndex facetIndex;
+    
+    @BeforeEach
+    void setUp() {
+        when(videoRepository.findAll()).thenReturn(List.of(
+                video(1L, "Drama", 1994, 2),
+                video(2L, "drama ", 1999, 0),
+                video(3L, "Comedy", 2003, 1),
+                video(4L, "Sci-Fi", 2010, 3),
+                video(5L, null, 1989, 1)
+        ));
+        facetIndex.rebuild();
+    }
+    
+    @Test
+    void filter_MatchesGenresCaseInsensitively() {
+        // Act & Assert
+        assertEquals(List.of(1, 2), ids(filter(List.of("DRAMA"), null, null, null, Match.ALL)));
+        assertEquals(List.of(1, 2, 3), ids(filter(List.of("drama", "comedy"), null, null, null, Match.ALL)));
+        assertTrue(ids(filter(List.of("Western"), null, null, null, Match.ALL)).isEmpty());
+    }
+    
+    @Test
+    void filter_YearRangesAreInclusiveAndMayBeOpen() {
+        // Act & Assert
+        assertEquals(List.of(1, 2, 3), ids(filter(null, 1990, 2003, null, Match.ALL)));
+        assertEquals(List.of(3, 4), ids(filter(null, 2000, null, null, Match.ALL)));
+        assertEquals(List.of(1, 5), ids(filter(null, null, 1994, null, Match.ALL)));
+        assertTrue(ids(filter(null, 2005, 1995, null, Match.ALL)).isEmpty());
+    }
+    
+    @Test
+    void filter_AvailableOnlyExcludesVideosWithoutCopies() {
+        // Act & Assert
+        assertEquals(List.of(1, 3, 4, 5), ids(filter(null, null, null, true, Match.ALL)));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(filter(null, null, null, null, Match.ALL)));
+    }
+    
+    @Test
+    void filter_CombinesFacetsWithAllOrAny() {
+        // Act & Assert
+        assertEquals(List.of(1), ids(filter(List.of("Drama"), null, null, true, Match.ALL)));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(filter(List.of("Drama"), null, null, true, Match.ANY)));
+        assertEquals(List.of(1, 2, 4), ids(filter(List.of("Drama"), 2005, null, null, Match.ANY)));
+        assertTrue(ids(filter(List.of("Drama"), 2005, null, null, Match.ALL)).isEmpty());
+    }
+    
+    @Test
+    void count_ReportsGenresDecadesAndAvailability() {
+        // Act
+        FacetCounts counts = facetIndex.count(facetIndex.filter(filter(null, null, null, null, Match.ALL)));
+        
+        // Assert
+        assertEquals(5, counts.total());
+        assertEquals(4, counts.available());
+        assertEquals(Map.of("Drama", 2, "Comedy", 1, "Sci-Fi", 1), counts.genres());
+        assertEquals(Map.of("1980s", 1, "1990s", 2, "2000s", 1, "2010s", 1), counts.decades());
+    }
+    
+    @Test
+    void copiesChanged_AppliesTheCommittedCopyCount() {
+        // Arrange
+        when(videoRepository.findAvailableCopiesById(1L)).thenReturn(Optional.of(0));
+        when(videoRepository.findAvailableCopiesById(2L)).thenReturn(Optional.of(1));
+        
+        // Act
+        facetIndex.onVideoChanged(VideoChangedEvent.copiesChanged(1L));
+        facetIndex.onVideoChanged(VideoChangedEvent.copiesChanged(2L));
+        
+        // Assert
+        assertEquals(List.of(2, 3, 4, 5), ids(filter(null, null, null, true, Match.ALL)));
+    }
+    
+    @Test
+    void copiesChanged_OtherVideosDoNotWaitForASlowRefresh() throws Exception {
+        // Arrange: the refresh of video 1 is stuck in its query
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(videoRepository.findAvailableCopiesById(1L)).thenAnswer(invocation -> {
+            querying.countDown();
+            release.await();
+            return Optional.of(0);
+        });
+        when(videoRepository.findAvailableCopiesById(2L)).thenReturn(Optional.of(1));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        
+        try {
+            Future<?> slow = executor.submit(() -> facetIndex.onVideoChanged(VideoChangedEvent.copiesChanged(1L)));
+            assertTrue(querying.await(5, TimeUnit.SECONDS));
+            
+            // Act
+            executor.submit(() -> facetIndex.onVideoChanged(VideoChangedEvent.copiesChanged(2L)))
+                    .get(5, TimeUnit.SECONDS);
+            
+            // Assert
+            assertEquals(List.of(1, 2, 3, 4, 5), ids(filter(null, null, null, true, Match.ALL)));
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(2, 3, 4, 5), ids(filter(null, null, null, true, Match.ALL)));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void updatedAndDeleted_ReindexTheVideo() {
+        // Act
+        facetIndex.onVideoChanged(VideoChangedEvent.updated(video(3L, "Drama", 2003, 1)));
+        facetIndex.onVideoChanged(VideoChangedEvent.deleted(1L));
+        
+        // Assert
+        assertEquals(List.of(2, 3), ids(filter(List.of("drama"), null, null, null, Match.ALL)));
+        assertFalse(facetIndex.count(facetIndex.filter(filter(null, null, null, null, Match.ALL)))
+                .genres().containsKey("Comedy"));
+        assertEquals("Drama", facetIndex.genreOf(3L));
+    }
+    
+    private List<Integer> ids(Filter filter) {
+        RoaringBitmap bitmap = facetIndex.filter(filter);
+        return bitmap.stream().boxed().toList();
+    }
+    
+    private static Filter filter(List<String> genres, Integer yearFrom, Integer yearTo, Boolean availableOnly,
+                                 Match match) {
+        return new Filter(genres, yearFrom, yearTo, availableOnly, match);
+    }
+    
+    private static Video video(Long id, String genre, int releaseYear, int availableCopies) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTitle("Feature " + id);
+        video.setGenre(genre);
+        video.setReleaseYear(releaseYear);
+        video.setTotalCopies(3);
+        video.setAvailableCopies(availableCopies);
+        video.setAvailable(availableCopies > 0);
+        return video;
+    }
+}
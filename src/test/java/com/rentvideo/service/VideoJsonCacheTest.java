@@ -0,0 +1,200 @@
+package com.rentvideo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentvideo.event.VideoChangedEvent;
+import com.rentvideo.exception.ResourceNotFoundException;
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import com.rentvideo.support.StatementBudget;
+import com.rentvideo.support.StatementCountTest;
+import com.rentvideo.support.StatementStatistics;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@StatementCountTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({VideoJsonCache.class, VideoService.class, InventoryService.class,
+        VideoSearchIndex.class, VideoFacetIndex.class, InventoryJournalService.class})
+class VideoJsonCacheTest {
+    
+    @Autowired
+    private VideoJsonCache cache;
+    
+    @Autowired
+    private VideoService videoService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @Autowired
+    private StatementStatistics statements;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Test
+    void videosJson_MatchesJacksonAndServesRepeatsFromOneQuery() throws Exception {
+        // Arrange
+        List<Video> videos = createVideos(20);
+        List<Long> ids = videos.stream().map(Video::getId).toList();
+        List<Long> withDeleted = new ArrayList<>(ids);
+        withDeleted.add(-1L);
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        
+        // Act
+        List<byte[]> first = statements.assertWithin(StatementBudget.selects(2), () -> cache.videosJson(withDeleted));
+        List<byte[]> second = statements.assertWithin(StatementBudget.selects(1), () -> cache.videosJson(ids));
+        
+        // Assert
+        assertEquals(20, first.size());
+        for (int i = 0; i < videos.size(); i++) {
+            byte[] expected = objectMapper.writeValueAsBytes(videoService.mapToVideoResponse(videos.get(i)));
+            assertArrayEquals(expected, first.get(i));
+            assertSame(first.get(i), second.get(i));
+        }
+        assertEquals(20, cache.getHits() - hits);
+        assertEquals(20, cache.getMisses() - misses);
+    }
+    
+    @Test
+    void videosJson_QueriesLongListsAChunkAtATime() {
+        // Arrange
+        List<Long> ids = createVideos(VideoJsonCache.QUERY_CHUNK + 1).stream().map(Video::getId).toList();
+        
+        // Act
+        List<byte[]> first = statements.assertWithin(StatementBudget.selects(4), () -> cache.videosJson(ids));
+        List<byte[]> second = statements.assertWithin(StatementBudget.selects(2), () -> cache.videosJson(ids));
+        
+        // Assert
+        assertEquals(ids.size(), first.size());
+        assertSame(first.get(ids.size() - 1), second.get(ids.size() - 1));
+    }
+    
+    @Test
+    void catalogJson_ChecksTheWholeCatalogWithOneQuery() {
+        // Arrange
+        List<Video> videos = createVideos(3);
+        List<byte[]> first = cache.catalogJson();
+        
+        // Act
+        List<byte[]> second = statements.assertWithin(StatementBudget.selects(1), () -> cache.catalogJson());
+        
+        // Assert
+        assertEquals(videos.size(), second.size());
+        for (int i = 0; i < videos.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+            assertTrue(new String(second.get(i), StandardCharsets.UTF_8).contains("\"title\":\"Feature " + i + "\""));
+        }
+    }
+    
+    @Test
+    void copiesChanged_ReloadsOnlyThatVideo() {
+        // Arrange
+        List<Video> videos = createVideos(3);
+        Video rented = videos.get(1);
+        List<Long> ids = videos.stream().map(Video::getId).toList();
+        List<byte[]> before = cache.videosJson(ids);
+        
+        rented.setAvailableCopies(0);
+        rented.setAvailable(false);
+        entityManager.flush();
+        entityManager.clear();
+        publish(VideoChangedEvent.copiesChanged(rented.getId()));
+        
+        // Act
+        List<byte[]> json = statements.assertWithin(StatementBudget.selects(2), () -> cache.videosJson(ids));
+        
+        // Assert
+        String reloaded = new String(json.get(1), StandardCharsets.UTF_8);
+        assertTrue(reloaded.contains("\"availableCopies\":0"), reloaded);
+        assertTrue(reloaded.contains("\"available\":false"), reloaded);
+        assertSame(before.get(0), json.get(0));
+        assertSame(before.get(2), json.get(2));
+    }
+    
+    @Test
+    void videoJson_IsReplacedAfterAnUpdateAndDroppedAfterADelete() {
+        // Arrange
+        Long id = createVideos(1).get(0).getId();
+        byte[] original = cache.videoJson(id);
+        
+        // Act
+        Video video = entityManager.find(Video.class, id);
+        video.setTitle("Director's Cut");
+        entityManager.flush();
+        publish(VideoChangedEvent.updated(video));
+        byte[] updated = cache.videoJson(id);
+        
+        entityManager.remove(video);
+        entityManager.flush();
+        publish(VideoChangedEvent.deleted(id));
+        
+        // Assert
+        assertNotSame(original, updated);
+        assertTrue(new String(updated, StandardCharsets.UTF_8).contains("Director's Cut"));
+        assertThrows(ResourceNotFoundException.class, () -> cache.videoJson(id));
+    }
+    
+    @Test
+    void videosJson_ReloadsRowsChangedWithoutAnEvent() {
+        // Arrange: another instance rents a copy, so no event reaches this cache
+        List<Video> videos = createVideos(2);
+        List<Long> ids = videos.stream().map(Video::getId).toList();
+        List<byte[]> before = cache.videosJson(ids);
+        videoRepository.decrementAvailableCopies(ids.get(0), 1, LocalDateTime.now());
+        entityManager.clear();
+        
+        // Act
+        List<byte[]> json = cache.videosJson(ids);
+        byte[] single = cache.videoJson(ids.get(0));
+        
+        // Assert
+        String reloaded = new String(json.get(0), StandardCharsets.UTF_8);
+        assertTrue(reloaded.contains("\"availableCopies\":1"), reloaded);
+        assertSame(json.get(0), single);
+        assertSame(before.get(1), json.get(1));
+    }
+    
+    /**
+     * The test transaction never commits, so call the listener directly
+     */
+    private void publish(VideoChangedEvent event) {
+        cache.onVideoChanged(event);
+    }
+    
+    private List<Video> createVideos(int count) {
+        List<Video> videos = IntStream.range(0, count).mapToObj(i -> {
+            Video video = new Video();
+            video.setTitle("Feature " + i);
+            video.setDescription("A long description ".repeat(50));
+            video.setGenre("Drama");
+            video.setReleaseYear(1990 + i);
+            video.setDurationMinutes(90);
+            video.setRentalPricePerDay(new BigDecimal("2.99"));
+            video.setTotalCopies(2);
+            video.setAvailableCopies(2);
+            video.setAvailable(true);
+            entityManager.persist(video);
+            return video;
+        }).toList();
+        entityManager.flush();
+        return videos;
+    }
+}
@@ -0,0 +1,83 @@
+package com.rentvideo.service;
+
+import com.rentvideo.model.Video;
+import com.rentvideo.repository.VideoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VideoSearchIndexTest {
+    
+    @Mock
+    private VideoRepository videoRepository;
+    
+    @InjectMocks
+    private VideoSearchIndex searchIndex;
+    
+    @BeforeEach
+    void setUp() {
+        when(videoRepository.findAll()).thenReturn(List.of(
+                video(1L, "The Dark Knight", "Christopher Nolan", "Batman faces the Joker in Gotham."),
+                video(2L, "Inception", "Christopher Nolan", "A thief enters dreams."),
+                video(3L, "Knight and Day", "James Mangold", "A spy comedy."),
+                video(4L, "Amélie", "Jean-Pierre Jeunet", "A shy waitress in Paris.")
+        ));
+        searchIndex.rebuild();
+    }
+    
+    @Test
+    void search_RanksTitleMatchesAboveOtherFields() {
+        // Act
+        List<Long> ids = searchIndex.search("knight");
+        
+        // Assert
+        assertEquals(List.of(3L, 1L), ids);
+    }
+    
+    @Test
+    void search_MatchesInfixPrefixAndAccents() {
+        // Act & Assert
+        assertEquals(List.of(1L), searchIndex.search("ark"));
+        assertEquals(List.of(2L), searchIndex.search("incep"));
+        assertEquals(List.of(4L), searchIndex.search("AMELIE"));
+        assertEquals(List.of(1L), searchIndex.search("joker"));
+    }
+    
+    @Test
+    void search_RequiresEveryTerm() {
+        // Act & Assert
+        assertEquals(List.of(1L), searchIndex.search("nolan dark"));
+        assertTrue(searchIndex.search("nolan paris").isEmpty());
+    }
+    
+    @Test
+    void index_ReplacesAndRemovesDocuments() {
+        // Act
+        searchIndex.index(video(2L, "Interstellar", "Christopher Nolan", "Space."));
+        searchIndex.remove(3L);
+        
+        // Assert
+        assertTrue(searchIndex.search("inception").isEmpty());
+        assertEquals(List.of(2L), searchIndex.search("interstellar"));
+        assertEquals(List.of(1L), searchIndex.search("knight"));
+        assertEquals(3, searchIndex.size());
+    }
+    
+    private static Video video(Long id, String title, String director, String description) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTitle(title);
+        video.setDirector(director);
+        video.setDescription(description);
+        return video;
+    }
+}
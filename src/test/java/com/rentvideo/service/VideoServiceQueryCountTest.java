@@ -0,0 +1,129 @@
+package com.rentvideo.service;
+
+import com.rentvideo.dto.request.VideoRequest;
+import com.rentvideo.dto.response.VideoResponse;
+import com.rentvideo.dto.response.VideoSearchResponse;
+import com.rentvideo.model.Video;
+import com.rentvideo.support.StatementBudget;
+import com.rentvideo.support.StatementCountTest;
+import com.rentvideo.support.StatementStatistics;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query budgets for every VideoService method
+ */
+@StatementCountTest
+@Import({VideoService.class, InventoryService.class, VideoSearchIndex.class, VideoFacetIndex.class,
+        InventoryJournalService.class})
+class VideoServiceQueryCountTest {
+    
+    @Autowired
+    private VideoService videoService;
+    
+    @Autowired
+    private VideoSearchIndex searchIndex;
+    
+    @Autowired
+    private VideoFacetIndex facetIndex;
+    
+    @Autowired
+    private StatementStatistics statements;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Test
+    void catalogReads_IssueOneSelectRegardlessOfRowCount() {
+        // Arrange
+        createVideos(200);
+        
+        // Act & Assert
+        assertEquals(200, statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.getAllVideos()).size());
+        assertEquals(200, statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.getAvailableVideos()).size());
+        assertEquals(100, statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.getVideosByGenre("Drama")).size());
+    }
+    
+    @Test
+    void lookupsById_IssueOneSelect() {
+        // Arrange
+        List<Video> videos = createVideos(20);
+        List<Long> ids = videos.stream().map(Video::getId).toList();
+        
+        // Act & Assert
+        VideoResponse video = statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.getVideoById(ids.get(0)));
+        assertEquals(ids.get(0), video.getId());
+        Map<Long, Video> byId = statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.getVideoEntitiesByIds(ids));
+        assertEquals(20, byId.size());
+    }
+    
+    @Test
+    void searches_LoadOnlyTheMatchesInOneSelect() {
+        // Arrange
+        createVideos(200);
+        searchIndex.rebuild();
+        facetIndex.rebuild();
+        
+        // Act & Assert
+        assertEquals(200, statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.searchVideos("feature")).size());
+        assertEquals(100, statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.findVideos("feature", facets("Action"))).size());
+        VideoSearchResponse catalog = statements.assertWithin(StatementBudget.selects(1),
+                () -> videoService.searchCatalog(null, facets("Drama")));
+        assertEquals(100, catalog.getTotal());
+    }
+    
+    @Test
+    void writes_TouchOneRow() {
+        // Arrange
+        Long id = createVideos(1).get(0).getId();
+        
+        // Act & Assert
+        statements.assertWithin(StatementBudget.none().inserts(1), () -> videoService.createVideo(videoRequest(2)));
+        statements.assertWithin(StatementBudget.selects(1).updates(1), () -> videoService.updateVideo(id, videoRequest(4)));
+        statements.assertWithin(StatementBudget.selects(1).deletes(1), () -> videoService.deleteVideo(id));
+    }
+    
+    private static VideoFacetIndex.Filter facets(String genre) {
+        return new VideoFacetIndex.Filter(List.of(genre), null, null, null, VideoFacetIndex.Match.ALL);
+    }
+    
+    private static VideoRequest videoRequest(int copies) {
+        VideoRequest request = new VideoRequest();
+        request.setTitle("Remastered Feature");
+        request.setGenre("Drama");
+        request.setReleaseYear(2021);
+        request.setDurationMinutes(120);
+        request.setRentalPricePerDay(new BigDecimal("3.49"));
+        request.setTotalCopies(copies);
+        return request;
+    }
+    
+    private List<Video> createVideos(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Video video = new Video();
+            video.setTitle("Feature " + i);
+            video.setGenre(i % 2 == 0 ? "Drama" : "Action");
+            video.setReleaseYear(1980 + i % 40);
+            video.setDurationMinutes(90);
+            video.setRentalPricePerDay(new BigDecimal("2.99"));
+            entityManager.persist(video);
+            return video;
+        }).toList();
+    }
+}
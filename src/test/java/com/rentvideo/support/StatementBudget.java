@@ -0,0 +1,71 @@
+package com.rentvideo.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maximum number of statements of each type a call may issue. Types not
+ * given are limited to zero, so an unexpected write fails the test too.
+ * Sequence calls and other statements are reported but not limited.
+ *
+ * <pre>
+ * StatementBudget.selects(3).inserts(1).updates(1)
+ * </pre>
+ */
+public final class StatementBudget {
+    
+    private final int selects;
+    private final int inserts;
+    private final int updates;
+    private final int deletes;
+    
+    private StatementBudget(int selects, int inserts, int updates, int deletes) {
+        this.selects = selects;
+        this.inserts = inserts;
+        this.updates = updates;
+        this.deletes = deletes;
+    }
+    
+    public static StatementBudget none() {
+        return new StatementBudget(0, 0, 0, 0);
+    }
+    
+    public static StatementBudget selects(int max) {
+        return new StatementBudget(max, 0, 0, 0);
+    }
+    
+    public StatementBudget inserts(int max) {
+        return new StatementBudget(selects, max, updates, deletes);
+    }
+    
+    public StatementBudget updates(int max) {
+        return new StatementBudget(selects, inserts, max, deletes);
+    }
+    
+    public StatementBudget deletes(int max) {
+        return new StatementBudget(selects, inserts, updates, max);
+    }
+    
+    /**
+     * One line per statement type over budget, empty if the count fits
+     */
+    List<String> violations(StatementCount count) {
+        List<String> violations = new ArrayList<>();
+        check(violations, "SELECT", count.selects(), selects);
+        check(violations, "INSERT", count.inserts(), inserts);
+        check(violations, "UPDATE", count.updates(), updates);
+        check(violations, "DELETE", count.deletes(), deletes);
+        return violations;
+    }
+    
+    private static void check(List<String> violations, String type, int actual, int max) {
+        if (actual > max) {
+            violations.add(String.format("%s: expected at most %d, got %d", type, max, actual));
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("selects=%d, inserts=%d, updates=%d, deletes=%d", selects, inserts, updates, deletes);
+    }
+}
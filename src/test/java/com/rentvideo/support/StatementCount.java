@@ -0,0 +1,19 @@
+package com.rentvideo.support;
+
+/**
+ * Statements issued by one measured call. A JDBC batch counts once.
+ */
+public record StatementCount(int selects, int inserts, int updates, int deletes, int other,
+                             long entityFetches, long collectionFetches) {
+    
+    public int total() {
+        return selects + inserts + updates + deletes + other;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("selects=%d, inserts=%d, updates=%d, deletes=%d, other=%d "
+                        + "(lazy entity fetches=%d, lazy collection fetches=%d)",
+                selects, inserts, updates, deletes, other, entityFetches, collectionFetches);
+    }
+}
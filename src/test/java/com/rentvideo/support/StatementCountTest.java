@@ -0,0 +1,30 @@
+package com.rentvideo.support;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A {@link DataJpaTest} with Hibernate statistics and the statement counter
+ * switched on, and a {@link StatementStatistics} bean to assert query budgets
+ * with. Import the services under test as usual.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.rentvideo.metrics.JdbcStatementCounter",
+        "spring.jpa.show-sql=false",
+        "journal.enabled=false"
+})
+@Import(StatementStatistics.class)
+public @interface StatementCountTest {
+}
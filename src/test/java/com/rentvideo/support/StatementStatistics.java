@@ -0,0 +1,70 @@
+package com.rentvideo.support;
+
+import com.rentvideo.metrics.JdbcStatementCounter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Counts the statements a block of code sends to the database and fails the
+ * test when they go over a {@link StatementBudget}. Per-type counts come from
+ * {@link JdbcStatementCounter}; Hibernate statistics supply the lazy fetch
+ * counts and queries shown when a budget is exceeded.
+ *
+ * The persistence context is flushed and cleared before the block, so setup
+ * writes are not counted and nothing is served from the first-level cache,
+ * and flushed again after it, so writes Hibernate deferred to commit are
+ * charged to the call that made them.
+ */
+public class StatementStatistics {
+    
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+    
+    public StatementStatistics(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    public StatementCount measure(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        JdbcStatementCounter.Counts counts = JdbcStatementCounter.start();
+        try {
+            action.run();
+            entityManager.flush();
+        } finally {
+            JdbcStatementCounter.stop();
+        }
+        
+        if (counts.total() == 0 && statistics.getPrepareStatementCount() > 0) {
+            fail("Statements were prepared but not counted; is the test annotated with @StatementCountTest?");
+        }
+        return new StatementCount(counts.selects(), counts.inserts(), counts.updates(), counts.deletes(),
+                counts.other(), statistics.getEntityFetchCount(), statistics.getCollectionFetchCount());
+    }
+    
+    public void assertWithin(StatementBudget budget, Runnable action) {
+        StatementCount count = measure(action);
+        List<String> violations = budget.violations(count);
+        if (!violations.isEmpty()) {
+            fail(String.format("Statement budget exceeded%n  %s%n  budget: %s%n  actual: %s%n  queries: %s",
+                    String.join("\n  ", violations), budget, count, Arrays.toString(statistics.getQueries())));
+        }
+    }
+    
+    public <T> T assertWithin(StatementBudget budget, Supplier<T> action) {
+        AtomicReference<T> result = new AtomicReference<>();
+        assertWithin(budget, () -> result.set(action.get()));
+        return result.get();
+    }
+}
@@ -0,0 +1,10 @@
+-- The H2 schema ddl-auto=update created for a new database in the last release
+-- before Flyway, as Hibernate's schema export wrote it (H2Dialect).
+create sequence rentals_seq start with 1 increment by 50;
+create table rentals (due_date date not null, late_fee numeric(38,2), rental_date date not null, rental_price numeric(38,2) not null, return_date date, total_amount numeric(38,2), created_at timestamp(6) not null, id bigint not null, user_id bigint not null, video_id bigint not null, status varchar(255) not null check (status in ('ACTIVE','RETURNED','OVERDUE')), primary key (id));
+create table revenue_rollups (late_fees numeric(19,2) not null, rental_revenue numeric(19,2) not null, rentals bigint not null, returns bigint not null, updated_at timestamp(6) not null, dimension varchar(10) not null check (dimension in ('ALL','VIDEO','GENRE','DAY')), bucket varchar(100) not null, primary key (dimension, bucket));
+create table users (active boolean not null, created_at timestamp(6) not null, id bigint generated by default as identity, updated_at timestamp(6) not null, email varchar(255) not null unique, full_name varchar(255) not null, password varchar(255) not null, phone_number varchar(255), role varchar(255) not null check (role in ('USER','ADMIN')), username varchar(255) not null unique, primary key (id));
+create table videos (available boolean not null, available_copies integer not null, duration_minutes integer not null, release_year integer not null, rental_price_per_day numeric(38,2) not null, total_copies integer not null, created_at timestamp(6) not null, id bigint generated by default as identity, updated_at timestamp(6) not null, description varchar(1000), cover_image_url varchar(255), director varchar(255), genre varchar(255), title varchar(255) not null, primary key (id));
+create index idx_rentals_status_due_date on rentals (status, due_date);
+alter table if exists rentals add constraint FKtnhd1objf2mlb6ag6k726u269 foreign key (user_id) references users;
+alter table if exists rentals add constraint FKaxen3bv45i2bomwl7nip5knye foreign key (video_id) references videos;